@@ -0,0 +1,67 @@
+package com.github.peiatgithub.java.utils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.peiatgithub.java.utils.JavaRegexBuilder;
+import com.github.peiatgithub.java.utils.database.sql.SqlBuilder;
+import com.github.peiatgithub.java.utils.database.sql.SqlCondition;
+import com.github.peiatgithub.java.utils.database.sql.constants.Order;
+import com.github.peiatgithub.java.utils.xml.XpathBuilder;
+
+import static com.github.peiatgithub.java.utils.database.sql.constants.AggregateFunction.*;
+
+/**
+ * <pre>
+ * Building typical statements with SqlBuilder, XpathBuilder and JavaRegexBuilder.
+ * </pre>
+ * 
+ * @author pei
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class BuildersBenchmark {
+
+    @Benchmark
+    public String sqlSelectWhere() {
+        return new SqlBuilder().selectAll().from("Customers").where("CustomerID").between(10, 100)
+                .orderBy("Country").build();
+    }
+
+    @Benchmark
+    public String sqlSelectInValues() {
+        return new SqlBuilder().selectAll().from("Customers").where("Country")
+                .inValues("Germany", "France", "UK", "Spain", "Italy").build();
+    }
+
+    @Benchmark
+    public String sqlSelectGroupByHaving() {
+        return new SqlBuilder().select(count("CustomerID"), "Country").from("Customers").groupBy("Country")
+                .having(new SqlCondition(count("CustomerID")).greaterThan(5))
+                .orderBy(Order.DESC, count("CustomerID")).build();
+    }
+
+    @Benchmark
+    public String xpath() {
+        return new XpathBuilder().startFromRoot("bookstore").down("book").indexFromLast(2)
+                .withAttribute("category", "web").down("title").index(1).build();
+    }
+
+    @Benchmark
+    public String javaRegex() {
+        return new JavaRegexBuilder().lineBegin().digit(3).literal("-").digit(3, 4).whiteSpace().atLeast(1)
+                .lettersIgnoreCase(2, 10).lineEnd().build();
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.github.peiatgithub.java.utils.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.peiatgithub.java.utils.Encloser;
+import com.github.peiatgithub.java.utils.Utils;
+import com.google.common.base.Joiner;
+
+/**
+ * <pre>
+ * Utils.listToString/arrayToString/join against Guava Joiner and String.join.
+ * </pre>
+ * 
+ * @author pei
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class JoinBenchmark {
+
+    private static final String SEPARATOR = ", ";
+    private static final Joiner JOINER = Joiner.on(SEPARATOR);
+
+    @Param({ "10", "1000", "100000" })
+    public int size;
+
+    private List<String> list;
+    private String[] array;
+
+    @Setup
+    public void setup() {
+        list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add("item" + Utils.randomNumberOfDigit(1 + i % 9));
+        }
+        array = list.toArray(new String[size]);
+    }
+
+    @Benchmark
+    public String listToString() {
+        return Utils.listToString(list, SEPARATOR, Encloser.EMPTY);
+    }
+
+    @Benchmark
+    public String listToStringEnclosed() {
+        return Utils.listToString(list, SEPARATOR, Encloser.SINGLE);
+    }
+
+    @Benchmark
+    public String arrayToString() {
+        return Utils.arrayToString(array, SEPARATOR, Encloser.SINGLE);
+    }
+
+    @Benchmark
+    public String utilsJoin() {
+        return Utils.join(array, SEPARATOR);
+    }
+
+    @Benchmark
+    public String baselineGuavaJoiner() {
+        return JOINER.join(list);
+    }
+
+    @Benchmark
+    public String baselineStringJoin() {
+        return String.join(SEPARATOR, list);
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.github.peiatgithub.java.utils.benchmarks;
+
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.peiatgithub.java.utils.Utils;
+
+/**
+ * <pre>
+ * Utils.str(format, args...) and Utils.appendStr(sb, format, args...)
+ * against String.format and MessageFormat.
+ * </pre>
+ * 
+ * @author pei
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class StrBenchmark {
+
+    @Param({ "1", "4", "16" })
+    public int numOfArgs;
+
+    private String format;
+    private String jdkFormat;
+    private String messageFormatPattern;
+    private MessageFormat messageFormat;
+    private Object[] args;
+
+    private final StringBuilder sb = new StringBuilder();
+
+    @Setup
+    public void setup() {
+        StringBuilder f = new StringBuilder("Request ");
+        StringBuilder jf = new StringBuilder("Request ");
+        StringBuilder mf = new StringBuilder("Request ");
+        args = new Object[numOfArgs];
+        for (int i = 0; i < numOfArgs; i++) {
+            f.append("field").append(i).append("={}, ");
+            jf.append("field").append(i).append("=%s, ");
+            mf.append("field").append(i).append("={").append(i).append("}, ");
+            args[i] = (i % 2 == 0) ? ("value" + i) : Integer.valueOf(i * 1000);
+        }
+        format = f.append("done.").toString();
+        jdkFormat = jf.append("done.").toString();
+        messageFormatPattern = mf.append("done.").toString();
+        messageFormat = new MessageFormat(messageFormatPattern);
+    }
+
+    @Benchmark
+    public String utilsStr() {
+        return Utils.str(format, args);
+    }
+
+    @Benchmark
+    public String utilsStrln() {
+        return Utils.strln(format, args);
+    }
+
+    @Benchmark
+    public StringBuilder utilsAppendStr() {
+        sb.setLength(0);
+        return Utils.appendStr(sb, format, args);
+    }
+
+    @Benchmark
+    public String baselineStringFormat() {
+        return String.format(jdkFormat, args);
+    }
+
+    @Benchmark
+    public String baselineMessageFormat() {
+        return messageFormat.format(args);
+    }
+
+    @Benchmark
+    public String baselineMessageFormatStatic() {
+        return MessageFormat.format(messageFormatPattern, args);
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.github.peiatgithub.java.utils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.peiatgithub.java.utils.Utils;
+
+/**
+ * <pre>
+ * Utils.getSubString against String.split, 
+ * for one field in the middle of a line and for all fields of a line.
+ * </pre>
+ * 
+ * @author pei
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class SubStringBenchmark {
+
+    private static final String DELIMITER = ",";
+
+    @Param({ "10", "100" })
+    public int numOfFields;
+
+    private String line;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder(DELIMITER);
+        for (int i = 0; i < numOfFields; i++) {
+            sb.append(Utils.randomNumberOfDigit(1 + i % 18)).append(DELIMITER);
+        }
+        line = sb.toString();
+    }
+
+    @Benchmark
+    public String getSubStringMiddleField() {
+        return Utils.getSubString(line, DELIMITER, numOfFields / 2, numOfFields / 2 + 1);
+    }
+
+    @Benchmark
+    public void getSubStringAllFields(Blackhole bh) {
+        for (int i = 0; i < numOfFields; i++) {
+            bh.consume(Utils.getSubString(line, DELIMITER, i, i + 1));
+        }
+    }
+
+    @Benchmark
+    public String baselineSplitMiddleField() {
+        return line.split(DELIMITER)[numOfFields / 2 + 1];
+    }
+
+    @Benchmark
+    public void baselineSplitAllFields(Blackhole bh) {
+        for (String field : line.split(DELIMITER)) {
+            bh.consume(field);
+        }
+    }
+
+}
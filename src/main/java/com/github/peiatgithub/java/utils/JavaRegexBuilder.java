@@ -1,6 +1,6 @@
 package com.github.peiatgithub.java.utils;
 
-import static com.github.peiatgithub.java.utils.Utils.*;
+import com.github.peiatgithub.java.utils.text.StrTemplate;
 
 /**
  * @author pei
@@ -8,6 +8,10 @@ import static com.github.peiatgithub.java.utils.Utils.*;
  */
 public class JavaRegexBuilder {
 
+    private static final StrTemplate TIMES = StrTemplate.compile("{{}}");
+    private static final StrTemplate TIMES_RANGE = StrTemplate.compile("{{},{}}");
+    private static final StrTemplate AT_LEAST = StrTemplate.compile("{{},}");
+
     private StringBuilder regex = new StringBuilder();
 
     /**
@@ -312,21 +316,24 @@ public class JavaRegexBuilder {
      * Occurrence times
      */
     public JavaRegexBuilder times(int n) {
-        return append(str("{{}}", n));
+        TIMES.appendTo(this.regex, n);
+        return this;
     }
 
     /**
      * Occurrence times, range: [from, to]
      */
     public JavaRegexBuilder times(int from, int to) {
-        return append(str("{{},{}}", from, to));
+        TIMES_RANGE.appendTo(this.regex, from, to);
+        return this;
     }
 
     /**
      * Occurrence times, at least n times
      */
     public JavaRegexBuilder atLeast(int n) {
-        return append(str("{{},}", n));
+        AT_LEAST.appendTo(this.regex, n);
+        return this;
     }
 
     /**
@@ -0,0 +1,187 @@
+package com.github.peiatgithub.java.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <pre>
+ * An instance-based stop watch with nanosecond precision, laps, splits and pause/resume.
+ * Unlike the static NanoStopWatch, any number of watches can run at the same time, e.g. nested timings.
+ *
+ * - start() starts (or restarts) the watch, stop() stops it and returns the elapsed time.
+ * - split() returns the elapsed time without stopping the watch.
+ * - lap() records the time since the previous lap (or the start), and returns it.
+ * - pause() and resume(): the time while paused is not counted.
+ *
+ * The laps are kept in an array allocated by the constructor, so using the watch allocates nothing.
+ * A watch is meant to be used by one thread at a time (it is not thread-safe).
+ *
+ * Example:
+ *   LapStopWatch watch = new LapStopWatch(3);
+ *   watch.start();
+ *   parse();
+ *   watch.lap();
+ *   watch.pause();
+ *   log();
+ *   watch.resume();
+ *   write();
+ *   watch.lap();
+ *   long total = watch.stop(); // total == watch.getLapNanos(0) + watch.getLapNanos(1)
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class LapStopWatch {
+
+    private final long[] laps;
+    private int numOfLaps = 0;
+
+    private boolean running = false;
+    private boolean paused = false;
+    /** When the current not paused period began */
+    private long periodBegin;
+    /** The elapsed time of the previous not paused periods */
+    private long elapsedBeforePeriod;
+    /** The elapsed time at the previous lap */
+    private long elapsedAtLap;
+
+    /**
+     * A watch which records no lap.
+     */
+    public LapStopWatch() {
+        this(0);
+    }
+
+    /**
+     * @param maxLaps max number of laps recorded between start() and stop().
+     */
+    public LapStopWatch(int maxLaps) {
+        if (maxLaps < 0) {
+            throw new IllegalArgumentException("Max laps must not be negative.");
+        }
+        this.laps = new long[maxLaps];
+    }
+
+    /**
+     * Start the watch, from 0 and with no lap, even if it was running.
+     */
+    public LapStopWatch start() {
+        numOfLaps = 0;
+        elapsedBeforePeriod = 0;
+        elapsedAtLap = 0;
+        running = true;
+        paused = false;
+        periodBegin = System.nanoTime();
+        return this;
+    }
+
+    /**
+     * Stop the watch, and return the elapsed nanoseconds since start(), not counting the paused time.
+     * @throws IllegalStateException if the watch is not running.
+     */
+    public long stop() {
+        long elapsed = split();
+        running = false;
+        paused = false;
+        elapsedBeforePeriod = elapsed;
+        return elapsed;
+    }
+
+    /**
+     * The elapsed nanoseconds since start(), not counting the paused time.
+     * @throws IllegalStateException if the watch is not running.
+     */
+    public long split() {
+        checkRunning();
+        return paused ? elapsedBeforePeriod : elapsedBeforePeriod + (System.nanoTime() - periodBegin);
+    }
+
+    /**
+     * Record a lap, and return its nanoseconds (since the previous lap or start(), not counting the paused time).
+     * @throws IllegalStateException if the watch is not running, or maxLaps are already recorded.
+     */
+    public long lap() {
+        long elapsed = split();
+        if (numOfLaps == laps.length) {
+            throw new IllegalStateException("Cannot record more than " + laps.length + " laps.");
+        }
+        long lap = elapsed - elapsedAtLap;
+        laps[numOfLaps++] = lap;
+        elapsedAtLap = elapsed;
+        return lap;
+    }
+
+    /**
+     * Stop counting the time until resume(). Does nothing if already paused.
+     * @throws IllegalStateException if the watch is not running.
+     */
+    public LapStopWatch pause() {
+        checkRunning();
+        if (!paused) {
+            elapsedBeforePeriod += System.nanoTime() - periodBegin;
+            paused = true;
+        }
+        return this;
+    }
+
+    /**
+     * Count the time again after pause(). Does nothing if not paused.
+     * @throws IllegalStateException if the watch is not running.
+     */
+    public LapStopWatch resume() {
+        checkRunning();
+        if (paused) {
+            periodBegin = System.nanoTime();
+            paused = false;
+        }
+        return this;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * The elapsed nanoseconds since start(), up to now if running, or to stop(). 0 if never started.
+     */
+    public long getElapsedNanos() {
+        return running ? split() : elapsedBeforePeriod;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getElapsedNanos());
+    }
+
+    public int getNumOfLaps() {
+        return numOfLaps;
+    }
+
+    public int getMaxLaps() {
+        return laps.length;
+    }
+
+    /**
+     * The nanoseconds of the lap, index beginning from 0.
+     */
+    public long getLapNanos(int index) {
+        if (index < 0 || index >= numOfLaps) {
+            throw new IndexOutOfBoundsException("Lap " + index + " of " + numOfLaps + " laps.");
+        }
+        return laps[index];
+    }
+
+    /*
+     *
+     */
+
+    private void checkRunning() {
+        if (!running) {
+            throw new IllegalStateException("The stop watch is not running.");
+        }
+    }
+
+}
@@ -3,16 +3,19 @@ package com.github.peiatgithub.java.utils;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * <pre>
  * A stop watch to measure the elapsed time since previous call of begin()
- * 
+ *
+ * Each thread has its own watch (a LapStopWatch), so threads timing at the same time
+ * do not affect each other. For nested timings, laps or pause/resume, use LapStopWatch.
+ * </pre>
+ *
  * @author pei
  *
  */
 public class NanoStopWatch {
 
-    private static boolean running = false;
-
-    private static long begin;
+    private static final ThreadLocal<LapStopWatch> WATCH = ThreadLocal.withInitial(LapStopWatch::new);
 
     private NanoStopWatch() {
         throw new RuntimeException();
@@ -22,12 +25,14 @@ public class NanoStopWatch {
      * start running the stop watch
      */
     public static void begin() {
-        begin = System.nanoTime();
-        running = true;
+        WATCH.get().start();
     }
 
     public static void stop() {
-        running = false;
+        LapStopWatch watch = WATCH.get();
+        if (watch.isRunning()) {
+            watch.stop();
+        }
     }
 
     /**
@@ -76,12 +81,10 @@ public class NanoStopWatch {
 
     private static long getElapsed(TimeUnit tu, boolean stop) {
 
-        long elapsed = System.nanoTime() - begin;
+        LapStopWatch watch = WATCH.get();
 
-        if (running) {
-            if (stop) {
-                running = false;
-            }
+        if (watch.isRunning()) {
+            long elapsed = stop ? watch.stop() : watch.split();
             switch (tu) {
             case MILLISECONDS:
                 return TimeUnit.NANOSECONDS.toMillis(elapsed);
@@ -1,22 +1,33 @@
 package com.github.peiatgithub.java.utils;
 
 import java.io.File;
-import java.io.RandomAccessFile;
-import java.text.DecimalFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
+import com.github.peiatgithub.java.utils.concurrent.ManagedThreadFactory;
+import com.github.peiatgithub.java.utils.concurrent.PreciseSleeper;
+import com.github.peiatgithub.java.utils.concurrent.RepeatRunner;
 import com.github.peiatgithub.java.utils.function.NonArgFunction;
+import com.github.peiatgithub.java.utils.io.FileTail;
+import com.github.peiatgithub.java.utils.io.LineSplitter;
+import com.github.peiatgithub.java.utils.text.FieldCursor;
+import com.github.peiatgithub.java.utils.text.Humanizer;
+import com.github.peiatgithub.java.utils.text.LazyStr;
+import com.github.peiatgithub.java.utils.text.StrJoiner;
+import com.github.peiatgithub.java.utils.text.StrTemplate;
 
 import static com.github.peiatgithub.java.utils.Constants.*;
 
@@ -28,6 +39,8 @@ import static com.github.peiatgithub.java.utils.Constants.*;
  */
 public class Utils {
 
+    private static final PreciseSleeper PRECISE_SLEEPER = PreciseSleeper.of(PreciseSleeper.Policy.PARK_THEN_SPIN);
+
     /**
      * <pre>
      * This method is an easier alternative to the String.format(format, args...)
@@ -59,43 +72,129 @@ public class Utils {
      */
     public static String str(String format, Object... args) {
 
-        String placeHolder = "{}";
-        String escapedPlaceHolder = "'{''}'";
-
-        if (args == null || args.length == 0) {
+        if (format == null || args == null || args.length == 0) {
             return format;
         }
 
-        int numOfPlaceHolder = StringUtils.countMatches(format, placeHolder);
-        int numOfValues = args.length;
+        // the format is parsed once and cached, see StrTemplate
+        return StrTemplate.of(format).render(args);
+    }
 
-        for (int i = 0; i < Math.min(numOfPlaceHolder, numOfValues); i++) {
-            format = StringUtils.replace(format, placeHolder, args[i].toString(), 1);
+    /**
+     * Similar to {@link #str}, with a system-dependent line separator at the end.
+     */
+    public static String strln(String format, Object... args) {
+        if (format == null || args == null || args.length == 0) {
+            return format + System.lineSeparator();
         }
+        return StrTemplate.of(format).renderln(args);
+    }
 
-        // if there are more place holders than values, fill the rest of placeholders
-        // with the last value
-        // result = StringUtils.replace(result, placeHolder, args[numOfValues
-        // -1].toString());
+    /**
+     * <pre>
+     * Similar to {@link #str}, but appends the result to the StringBuilder 
+     * instead of creating a new String.
+     * Returns the StringBuilder.
+     * </pre>
+     * 
+     * @since 5.1
+     */
+    public static StringBuilder appendStr(StringBuilder sb, String format, Object... args) {
+        if (format == null) {
+            return sb.append(format);
+        }
+        return StrTemplate.of(format).appendTo(sb, args);
+    }
 
-        // escape
-        format = StringUtils.replace(format, escapedPlaceHolder, placeHolder);
+    /**
+     * Similar to {@link #appendStr(StringBuilder, String, Object...)}, with a
+     * system-dependent line separator at the end.
+     * 
+     * @since 5.1
+     */
+    public static StringBuilder appendStrln(StringBuilder sb, String format, Object... args) {
+        return appendStr(sb, format, args).append(System.lineSeparator());
+    }
 
-        return format;
+    /**
+     * <pre>
+     * Similar to {@link #str}, but appends the result to the Appendable
+     * (e.g. a Writer) without creating intermediate Strings.
+     * Returns the Appendable.
+     * </pre>
+     * 
+     * @since 5.1
+     */
+    public static <A extends Appendable> A appendStr(A out, String format, Object... args) throws IOException {
+        if (format == null) {
+            out.append(format);
+            return out;
+        }
+        return StrTemplate.of(format).appendTo(out, args);
     }
 
     /**
-     * Similar to {@link #str}, with a system-dependent line separator at the end.
+     * Similar to {@link #appendStr(Appendable, String, Object...)}, with a
+     * system-dependent line separator at the end.
+     * 
+     * @since 5.1
      */
-    public static String strln(String format, Object... args) {
-        return str(format, args) + System.lineSeparator();
+    public static <A extends Appendable> A appendStrln(A out, String format, Object... args) throws IOException {
+        appendStr(out, format, args).append(System.lineSeparator());
+        return out;
+    }
+
+    /**
+     * <pre>
+     * Similar to {@link #str}, but encodes the result in UTF-8 into the ByteBuffer
+     * (e.g. to be written to a FileChannel), without creating the String.
+     * 
+     * Returns the number of bytes written.
+     * If the remaining space of the buffer is not enough, nothing is written, 
+     * and the returned number is negative: -(number of bytes needed).
+     * A null format writes nothing.
+     * </pre>
+     * 
+     * @since 5.1
+     */
+    public static int encodeStr(ByteBuffer buf, String format, Object... args) {
+        if (format == null) {
+            return 0;
+        }
+        return StrTemplate.of(format).encodeTo(buf, args);
+    }
+
+    /**
+     * <pre>
+     * Similar to {@link #str}, but the message is rendered only when its toString() 
+     * is called, e.g. when it is printed. 
+     * See {@link LazyStr}.
+     * </pre>
+     * 
+     * @since 5.1
+     */
+    public static LazyStr lazyStr(String format, Object... args) {
+        return LazyStr.of(format, args);
     }
 
     /**
      * println the message with the thread name prefixed.
      */
     public static void printlnWithThreadName(String message) {
-        strln("{}: {}", Thread.currentThread().getName(), message);
+        printlnWithThreadName((Object) message);
+    }
+
+    /**
+     * <pre>
+     * println the message with the thread name prefixed.
+     * The message's toString() is called only here, 
+     * so a {@link LazyStr} message is rendered only when printed.
+     * </pre>
+     * 
+     * @since 5.1
+     */
+    public static void printlnWithThreadName(Object message) {
+        System.out.print(strln("{}: {}", Thread.currentThread().getName(), message));
     }
 
     /**
@@ -115,58 +214,37 @@ public class Utils {
         IntStream.range(0, times).forEach(i -> c.accept(i));
     }
 
+    /**
+     * <pre>
+     * Run a piece of code N times in parallel, on a dedicated pool of the given number of threads.
+     * Takes the iteration index as an int, without boxing. Fails fast, see RepeatRunner.
+     * Returns the number of runs and the total elapsed time.
+     * </pre>
+     */
+    public static RepeatRunner.Result repeatRunParallel(int times, int parallelism, IntConsumer c) {
+        return RepeatRunner.times(times).parallelism(parallelism).run(c);
+    }
+
     /**
      * <pre>
      * Display the number of bytes in a human readable way.
      * Apache Commons FileUtils.byteCountToDisplaySize() rounds down to integer number.
      * This method keeps 1 digit after decimal point.
+     * (See Humanizer for appending to a StringBuilder, series and parsing back)
      * </pre>
      * 
      * @return the readable String
      */
     public static String bytesToReadable(double numOfBytes) {
-
-        if (numOfBytes < 0) {
-            throw new IllegalArgumentException("Number of bytes must bigger than or equal to 0.");
-        }
-
-        DecimalFormat df = new DecimalFormat("#.#");
-
-        if (numOfBytes >= GB) {
-            return df.format(numOfBytes / GB) + " GB";
-        } else if (numOfBytes >= MB) {
-            return df.format(numOfBytes / MB) + " MB";
-        } else if (numOfBytes >= KB) {
-            return df.format(numOfBytes / KB) + " KB";
-        } else {
-            return df.format(numOfBytes) + " Bytes";
-        }
+        return Humanizer.formatBytes(numOfBytes);
     }
 
     /**
      * returns the human readable String of a number with proper units
+     * (See Humanizer for appending to a StringBuilder, series and parsing back)
      */
     public static String numberToReadable(long num) {
-        String result = EMPTY;
-        double numAbs = Math.abs(num);
-
-        DecimalFormat df = new DecimalFormat("#.#");
-
-        if (numAbs >= BN) {
-            result = df.format(numAbs / BN).toString() + " Bn";
-        } else if (numAbs >= MN) {
-            String r = df.format(numAbs / MN).toString();
-            result = r.equals("1000") ? "1 Bn" : (r + " Mn");
-        } else if (numAbs >= K) {
-            String r = df.format(numAbs / K).toString();
-            result = r.equals("1000") ? "1 Mn" : (r + " K");
-        } else {
-            result = String.valueOf(numAbs);
-        }
-        if (num < 0) {
-            result = DASH + result;
-        }
-        return result;
+        return Humanizer.formatNumber(num);
     }
 
     /**
@@ -183,12 +261,30 @@ public class Utils {
             e.printStackTrace();
         }
     }
+
+    /**
+     * <pre>
+     * Sleep for the nanoseconds, precise to about a microsecond (PreciseSleeper.Policy.PARK_THEN_SPIN),
+     * and return the overshoot in nanoseconds.
+     * Swallows the InterruptedException like threadSleep(), with the interrupt status restored.
+     * </pre>
+     */
+    public static long threadSleepNanos(long nanos) {
+        try {
+            return PRECISE_SLEEPER.sleepNanos(nanos);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
     
     /**
      * <pre>
      * Make the codes for thread.join() in one line by 
      * swallowing the InterruptedException 
-     * (just call e.printStackTrace())
+     * (just call e.printStackTrace(), and restore the interrupt status of the current thread)
+     * To fork tasks and join them with a deadline, see TaskGroup.
      * </pre>
      */
     public static void threadJoin(Thread thr) {
@@ -196,19 +292,39 @@ public class Utils {
             thr.join();
         } catch (InterruptedException e) {
             e.printStackTrace();
+            Thread.currentThread().interrupt();
         }
     }
 
     /**
+     * <pre>
+     * Wait at most timeoutMillis for the thread to end, and return whether it ended.
+     * If the current thread is interrupted, return false, with the interrupt status restored.
+     * </pre>
+     */
+    public static boolean threadJoin(Thread thr, long timeoutMillis) {
+        try {
+            thr.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return !thr.isAlive();
+    }
+
+    /**
+     * <pre>
      * Simplify this common practice to one line.
+     * The thread is created by the default ManagedThreadFactory (named "utils-thread-N"):
+     * a virtual thread on Java 21+, which is cheap to create but a daemon thread, otherwise a platform thread.
+     * See ManagedThreadFactory.setDefault().
+     * </pre>
      * 
      * @param r to run in the newly created thread
      * @return the newly created thread
      */
     public static Thread createAndStartThread(Runnable r) {
-        Thread t = new Thread(r);
-        t.start();
-        return t;
+        return ManagedThreadFactory.getDefault().start(r);
     }
 
     /**
@@ -221,6 +337,9 @@ public class Utils {
      * getSubString("111,aaa,bbb,,ccc", ",", 2, 3) returns ""
      * getSubString("111,aaa,bbb,,ccc", ",", x, x) returns ""
      * getSubString("111,aaa,bbb,,ccc", ",", x, [a value bigger than the max occurrence number of delimiter]) returns ""
+     * 
+     * To get many fields of the same line, use a {@link FieldCursor}, 
+     * which finds the delimiters only once.
      * </pre>
      */
     public static String getSubString(String str, String delimiter, int n1, int n2) {
@@ -321,49 +440,19 @@ public class Utils {
      * 
      * null or empty list returns empty string "";
      * null separator/quote will be taken as empty("") separator/quote
+     * 
+     * See {@link StrJoiner} for other kinds of input, e.g. Iterable, Stream and primitive arrays.
      * </pre>
      */
     public static String listToString(List<? extends Object> l, String separator, Encloser encloser) {
-
-        if (CollectionUtils.isEmpty(l)) {
-            return EMPTY;
-        }
-
-        separator = safeStr(separator);
-        if (encloser == null) {
-            encloser = Encloser.EMPTY;
-        }
-
-        StringBuilder result = new StringBuilder();
-        for (Object o : l) {
-            result.append(encloser.begin()).append(o.toString()).append(encloser.end()).append(separator);
-        }
-
-        return StringUtils.removeEnd(result.toString(), separator);
-
+        return StrJoiner.on(separator).enclosedBy(encloser).join(l);
     }
 
     /**
      * Similar to {@link #listToString(List, String, Encloser)}.
      */
     public static String arrayToString(String[] arr, String separator, Encloser encloser) {
-
-        if (ArrayUtils.isEmpty(arr)) {
-            return EMPTY;
-        }
-
-        separator = safeStr(separator);
-        if (encloser == null) {
-            encloser = Encloser.EMPTY;
-        }
-
-        StringBuilder result = new StringBuilder();
-        for (String s : arr) {
-            result.append(encloser.begin()).append(s.toString()).append(encloser.end()).append(separator);
-        }
-
-        return StringUtils.removeEnd(result.toString(), separator);
-
+        return StrJoiner.on(separator).enclosedBy(encloser).join(arr);
     }
 
     /**
@@ -430,17 +519,18 @@ public class Utils {
      * @param digit must be in range [1, 18], otherwise throw exception.
      */
     public static long randomNumberOfDigit(int digit) {
-        String result;
         if (digit <= 0 || digit >= 19) {
             throw new IllegalArgumentException("'digit' must be in range of [1, 18].");
         } else if (digit == 1) {
-            result = RandomStringUtils.randomNumeric(1);
-        } else { // digit >1
-            String firstDigit = RandomStringUtils.random(1, "123456789");
-            String otherDigits = RandomStringUtils.randomNumeric(digit - 1);
-            result = firstDigit + otherDigits;
+            return ThreadLocalRandom.current().nextLong(10);
         }
-        return Long.valueOf(result);
+        // digit > 1: [10^(digit-1), 10^digit)
+        long min = 1;
+        for (int i = 1; i < digit; i++) {
+            min *= 10;
+        }
+        // exact for every value, RandomUtils.nextLong() goes through a double and may return min * 10
+        return min + ThreadLocalRandom.current().nextLong(9 * min);
     }
 
     /**
@@ -529,42 +619,49 @@ public class Utils {
     }
     
     /**
-     * Get the last line of a file.<br/>
-     * (Implemented using RandomAccessFile, moving char pointer from last char of a file backwards<br/>
-     * until found a LF/CR)
+     * Get the last line of a file, decoded with the default charset.<br/>
+     * (Empty if the file is empty or ends with a line break)<br/>
+     * (Implemented by reading the file backwards in blocks until found a LF/CR, see FileTail)
      */
     public static String getLastLineOfFile(File file) throws Exception {
-        try(RandomAccessFile rf = new RandomAccessFile(file, "r")){
-            //empty file
-            if(rf.length() == 0) {
-                return "";
-            }
-            
-            // put pointer to end
-            long pointer = rf.length() - 1; 
-            rf.seek(pointer);
-            
-            // move pointer backwards
-            char readChar;
-            String theLastLine = null;
-            while (pointer > 0) {
-                readChar = (char)rf.read();
-                if (isLineFeed(readChar) || isCarriageReturn(readChar)) {
-                    theLastLine = rf.readLine();
-                    if (theLastLine != null) {
-                        break;
-                    }
-                }
-                rf.seek(--pointer);
-                if (pointer == 0) {
-                    theLastLine = rf.readLine();
-                }
-            }
-            return theLastLine;
-        }
+        return FileTail.lastLine(file, Charset.defaultCharset());
+    }
+
+    /**
+     * Get the last line of a file, decoded with the charset.
+     * @see #getLastLineOfFile(File)
+     * @since 5.1
+     */
+    public static String getLastLineOfFile(File file, Charset charset) throws IOException {
+        return FileTail.lastLine(file, charset);
+    }
+
+    /**
+     * <pre>
+     * Get the last n lines of a file in file order (all the lines if the file has fewer),
+     * reading the file backwards in blocks, so it takes a few reads regardless of the file size.
+     * Lines end with LF, CR or CRLF, same as getLastLineOfFile() a file ending with a line break
+     * has an empty last line.
+     * </pre>
+     * @since 5.1
+     */
+    public static List<String> tailLines(File file, int n, Charset charset) throws IOException {
+        return FileTail.lastLines(file, n, charset);
     }
     
     
+    /**
+     * <pre>
+     * Count the lines of a file (number of LF/CR/CRLF line breaks, + 1 if the file
+     * does not end with a line break, so 0 for an empty file),
+     * memory-mapping a big file and counting its segments in parallel, see LineSplitter.
+     * </pre>
+     * @since 5.1
+     */
+    public static long countLinesOfFile(File file) throws IOException {
+        return LineSplitter.countLines(file);
+    }
+    
     /**
      * Get a file from resources folder
      */
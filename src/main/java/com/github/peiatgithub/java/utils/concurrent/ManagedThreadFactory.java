@@ -0,0 +1,180 @@
+package com.github.peiatgithub.java.utils.concurrent;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <pre>
+ * A ThreadFactory creating named threads ("prefix-1", "prefix-2", ...), with the configured daemon flag
+ * and uncaught exception handler, and, if asked and the JDK supports them (Java 21+), virtual threads.
+ * The library still runs on Java 8, where the threads are platform threads.
+ *
+ * newExecutor() gives a pool of these threads, so that the threads are reused and their number bounded.
+ *
+ * The default factory is used by Utils.createAndStartThread(), and can be replaced with setDefault().
+ * It creates virtual threads where supported, so that a thread per call stays cheap, and platform threads
+ * (inheriting the daemon flag) otherwise. Virtual threads are always daemon threads: the JVM does not wait
+ * for them to exit, so join the started thread if it must finish, or setDefault() a non-virtual factory.
+ *
+ * Configure the factory before creating threads with it.
+ *
+ * Example:
+ *   ManagedThreadFactory factory = ManagedThreadFactory.named("sender").daemon(true)
+ *           .uncaughtExceptionHandler((t, e) -> log.error(t.getName(), e)).virtual(true);
+ *   ExecutorService executor = factory.newExecutor(16);
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class ManagedThreadFactory implements ThreadFactory {
+
+    /** Idle pooled threads are stopped after this time */
+    public static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final ThreadFactory VIRTUAL_THREAD_FACTORY = lookUpVirtualThreadFactory();
+
+    private static volatile ManagedThreadFactory defaultFactory = named("utils-thread").virtual(true);
+
+    private final String namePrefix;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private Boolean daemon = null;
+    private UncaughtExceptionHandler uncaughtExceptionHandler = null;
+    private boolean virtual = false;
+
+    private ManagedThreadFactory(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    /**
+     * A factory of threads named "namePrefix-N", N beginning from 1.
+     */
+    public static ManagedThreadFactory named(String namePrefix) {
+        Objects.requireNonNull(namePrefix, "namePrefix");
+        return new ManagedThreadFactory(namePrefix);
+    }
+
+    /**
+     * Whether the platform threads are daemon threads. By default, the same as the thread creating them.
+     * (Virtual threads are always daemon threads)
+     */
+    public ManagedThreadFactory daemon(boolean daemon) {
+        this.daemon = daemon;
+        return this;
+    }
+
+    public ManagedThreadFactory uncaughtExceptionHandler(UncaughtExceptionHandler uncaughtExceptionHandler) {
+        this.uncaughtExceptionHandler = uncaughtExceptionHandler;
+        return this;
+    }
+
+    /**
+     * Whether to create virtual threads. Ignored if the JDK does not support them.
+     */
+    public ManagedThreadFactory virtual(boolean virtual) {
+        this.virtual = virtual;
+        return this;
+    }
+
+    /**
+     * Whether the threads created are virtual threads, i.e. asked for and supported by the JDK.
+     */
+    public boolean isVirtual() {
+        return virtual && VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    public static ManagedThreadFactory getDefault() {
+        return defaultFactory;
+    }
+
+    /**
+     * Replace the factory used by Utils.createAndStartThread().
+     */
+    public static void setDefault(ManagedThreadFactory factory) {
+        defaultFactory = Objects.requireNonNull(factory, "factory");
+    }
+
+    /**
+     * Create an unstarted thread.
+     */
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread t;
+        if (isVirtual()) {
+            t = VIRTUAL_THREAD_FACTORY.newThread(r);
+        } else {
+            t = new Thread(r);
+            if (daemon != null) {
+                t.setDaemon(daemon);
+            }
+        }
+        t.setName(namePrefix + "-" + threadCount.incrementAndGet());
+        if (uncaughtExceptionHandler != null) {
+            t.setUncaughtExceptionHandler(uncaughtExceptionHandler);
+        }
+        return t;
+    }
+
+    /**
+     * Create and start a thread.
+     */
+    public Thread start(Runnable r) {
+        Thread t = newThread(r);
+        t.start();
+        return t;
+    }
+
+    /**
+     * <pre>
+     * An executor running the tasks on at most maxThreads threads of this factory, the other tasks wait in a queue.
+     * Idle threads are stopped after KEEP_ALIVE_SECONDS.
+     * For virtual threads, which are cheap and should not be pooled, each task runs in a new thread,
+     * and maxThreads is ignored.
+     * </pre>
+     */
+    public ExecutorService newExecutor(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Max threads must be at least 1.");
+        }
+        if (isVirtual()) {
+            try {
+                return (ExecutorService) Executors.class
+                        .getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, this);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), this);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /*
+     *
+     */
+
+    /**
+     * Thread.ofVirtual().factory(), or null before Java 21 (or Java 19, 20 without preview features).
+     */
+    private static ThreadFactory lookUpVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+}
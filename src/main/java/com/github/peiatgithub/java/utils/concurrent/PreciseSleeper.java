@@ -0,0 +1,228 @@
+package com.github.peiatgithub.java.utils.concurrent;
+
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <pre>
+ * Sleeps with nanosecond precision, for sub-millisecond pacing.
+ *
+ * Thread.sleep() has millisecond granularity, and LockSupport.parkNanos() wakes up late by the timer slack
+ * of the OS (typically 50 to 100 microseconds on Linux). The policy chooses between CPU usage and precision:
+ * - PARK: only parkNanos(), no CPU used while waiting, but late by the timer slack.
+ * - PARK_THEN_SPIN: parkNanos() until the timer slack before the deadline, then Thread.yield()
+ *   and finally busy spin for the last microseconds. Precise to about a microsecond, using a CPU
+ *   only for the last part of the wait.
+ * - SPIN: busy spin for the whole wait, the most precise, but uses a CPU all the time.
+ *
+ * The timer slack and the cost of Thread.yield() are measured once, when the class is used the first time.
+ *
+ * Each sleeper records the overshoot (how late it woke up) of its sleeps, see getOvershoots().
+ * A sleeper can be shared by threads.
+ *
+ * Example:
+ *   PreciseSleeper sleeper = PreciseSleeper.of(PreciseSleeper.Policy.PARK_THEN_SPIN);
+ *   long next = System.nanoTime();
+ *   while (running) {
+ *       sendRequest();
+ *       next += 100_000; // 10000 requests per second
+ *       sleeper.sleepUntil(next);
+ *   }
+ *   printlnWithThreadName(sleeper.getOvershoots());
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class PreciseSleeper {
+
+    public enum Policy {
+        PARK, PARK_THEN_SPIN, SPIN
+    }
+
+    private static final long MIN_SPIN_NANOS = 1_000;
+    private static final long MAX_SPIN_NANOS = 50_000;
+    private static final int NUM_OF_CALIBRATION_RUNS = 21;
+
+    private final Policy policy;
+    private final Overshoots overshoots = new Overshoots();
+
+    private PreciseSleeper(Policy policy) {
+        this.policy = policy;
+    }
+
+    public static PreciseSleeper of(Policy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy must not be null.");
+        }
+        return new PreciseSleeper(policy);
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Sleep for the nanoseconds (a negative time is taken as 0),
+     * and return the overshoot (how many nanoseconds later than asked it woke up).
+     */
+    public long sleepNanos(long nanos) throws InterruptedException {
+        return sleep(System.nanoTime(), Math.max(0, nanos));
+    }
+
+    /**
+     * Sleep until System.nanoTime() reaches the deadline, and return the overshoot
+     * (if the deadline was already passed, how late it is).
+     */
+    public long sleepUntil(long deadline) throws InterruptedException {
+        long now = System.nanoTime();
+        return sleep(now, deadline - now);
+    }
+
+    public Overshoots getOvershoots() {
+        return overshoots;
+    }
+
+    /**
+     * The measured extra delay of parkNanos().
+     */
+    public static long getParkSlackNanos() {
+        return Calibration.PARK_SLACK_NANOS;
+    }
+
+    /*
+     *
+     */
+
+    /**
+     * Sleep until nanos have elapsed since begin. Only elapsed times are compared,
+     * so no deadline (begin + nanos) can overflow.
+     */
+    private long sleep(long begin, long nanos) throws InterruptedException {
+        long now = begin;
+        long remaining;
+        while ((remaining = nanos - (now - begin)) > 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (policy == Policy.PARK) {
+                LockSupport.parkNanos(remaining);
+            } else if (policy == Policy.PARK_THEN_SPIN) {
+                if (remaining > Calibration.PARK_SLACK_NANOS + Calibration.SPIN_NANOS) {
+                    LockSupport.parkNanos(remaining - Calibration.PARK_SLACK_NANOS);
+                } else if (remaining > Calibration.SPIN_NANOS) {
+                    Thread.yield();
+                }
+            }
+            now = System.nanoTime();
+        }
+        long overshoot = -remaining;
+        overshoots.record(overshoot);
+        return overshoot;
+    }
+
+    /**
+     * Measured once, when first used.
+     */
+    private static class Calibration {
+
+        static final long PARK_SLACK_NANOS;
+        static final long SPIN_NANOS;
+
+        static {
+            long[] parkOvershoots = new long[NUM_OF_CALIBRATION_RUNS];
+            long[] yieldNanos = new long[NUM_OF_CALIBRATION_RUNS];
+            for (int i = 0; i < NUM_OF_CALIBRATION_RUNS; i++) {
+                long begin = System.nanoTime();
+                LockSupport.parkNanos(10_000);
+                parkOvershoots[i] = System.nanoTime() - begin - 10_000;
+                begin = System.nanoTime();
+                Thread.yield();
+                yieldNanos[i] = System.nanoTime() - begin;
+            }
+            Arrays.sort(parkOvershoots);
+            Arrays.sort(yieldNanos);
+            // the 95th percentile (the 2nd highest of 21), so that parking rarely overshoots the deadline
+            PARK_SLACK_NANOS = Math.max(0, parkOvershoots[NUM_OF_CALIBRATION_RUNS * 95 / 100]);
+            SPIN_NANOS = Math.min(MAX_SPIN_NANOS, Math.max(MIN_SPIN_NANOS, 2 * yieldNanos[NUM_OF_CALIBRATION_RUNS / 2]));
+        }
+    }
+
+    /**
+     * <pre>
+     * The distribution of the overshoots of the sleeps, in power of 2 buckets (so percentiles are upper bounds).
+     * Recording is lock-free.
+     * </pre>
+     */
+    public static final class Overshoots {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            // bucket b holds the values in [2^(b-1), 2^b), bucket 0 holds 0
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+            total.add(nanos);
+            if (nanos > max.get()) {
+                max.accumulateAndGet(nanos, Math::max);
+            }
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (int b = 0; b < buckets.length(); b++) {
+                count += buckets.get(b);
+            }
+            return count;
+        }
+
+        public double getMean() {
+            long count = getCount();
+            return count == 0 ? 0 : (double) total.sum() / count;
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * An upper bound of the overshoot at the percentile (0 to 100), i.e. the end of its power of 2 bucket.
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+            long count = getCount();
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int b = 0; b < buckets.length(); b++) {
+                seen += buckets.get(b);
+                if (seen >= rank) {
+                    return Math.min(getMax(), b == 0 ? 0 : (1L << b) - 1);
+                }
+            }
+            return getMax();
+        }
+
+        public void reset() {
+            for (int b = 0; b < buckets.length(); b++) {
+                buckets.set(b, 0);
+            }
+            total.reset();
+            max.set(0);
+        }
+
+        @Override
+        public String toString() {
+            return str("{} sleeps, overshoot mean {} ns, p50 <= {}, p99 <= {}, max {}", getCount(),
+                    Math.round(getMean()), getPercentile(50), getPercentile(99), getMax());
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.github.peiatgithub.java.utils.concurrent;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * <pre>
+ * Thrown by RepeatRunner.run() when runs failed, after all the workers finished.
+ * The cause is the first failure, the other failures are suppressed exceptions,
+ * and getResult() tells how many runs were done and failed.
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public class RepeatRunException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient RepeatRunner.Result result;
+
+    RepeatRunException(RepeatRunner.Result result, Collection<Throwable> failures) {
+        super(result.getNumOfFailures() + " of " + result.getNumOfRuns() + " runs failed (" + result + ")",
+                failures.isEmpty() ? null : failures.iterator().next());
+        this.result = result;
+        Iterator<Throwable> it = failures.iterator();
+        if (it.hasNext()) {
+            it.next();
+        }
+        while (it.hasNext()) {
+            addSuppressed(it.next());
+        }
+    }
+
+    public RepeatRunner.Result getResult() {
+        return result;
+    }
+
+}
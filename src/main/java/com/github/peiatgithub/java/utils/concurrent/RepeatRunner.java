@@ -0,0 +1,217 @@
+package com.github.peiatgithub.java.utils.concurrent;
+
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import com.github.peiatgithub.java.utils.function.NonArgFunction;
+
+/**
+ * <pre>
+ * Runs a piece of code N times, like Utils.repeatRun(), on a dedicated ForkJoinPool of the given parallelism.
+ *
+ * The run indexes [0, N) are handed out to the worker threads in small batches, so all the workers
+ * stay busy until the end. The code takes the index as an int (IntConsumer), without boxing.
+ *
+ * If a run throws, the other runs go on, or, with fail fast (the default), no new run is started.
+ * After all the workers finished, a RepeatRunException is thrown, with the first failure as the cause
+ * and the others (up to MAX_SUPPRESSED) as suppressed exceptions. Otherwise the Result tells the
+ * number of runs and the total elapsed time.
+ *
+ * With parallelism 1, the runs are done in the calling thread.
+ *
+ * Example:
+ *   RepeatRunner.Result result = RepeatRunner.times(1_000_000).parallelism(8).run(i -> send(i));
+ *   printlnWithThreadName(result); // e.g. "1000000 runs, 0 failed, 0 not run, in 1523 ms"
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class RepeatRunner {
+
+    /** Max number of failures kept in a RepeatRunException, the others are only counted */
+    public static final int MAX_SUPPRESSED = 100;
+
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private final int times;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean failFast = true;
+
+    private RepeatRunner(int times) {
+        this.times = times;
+    }
+
+    /**
+     * @param times must not be negative.
+     */
+    public static RepeatRunner times(int times) {
+        if (times < 0) {
+            throw new IllegalArgumentException("'times' must not be negative.");
+        }
+        return new RepeatRunner(times);
+    }
+
+    /**
+     * Number of worker threads, defaults to the number of processors.
+     */
+    public RepeatRunner parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Whether to stop starting new runs after a run failed, defaults to true.
+     */
+    public RepeatRunner failFast(boolean failFast) {
+        this.failFast = failFast;
+        return this;
+    }
+
+    public Result run(NonArgFunction function) {
+        return run(i -> function.doSth());
+    }
+
+    /**
+     * Run the code with each index of [0, times), and wait for all the runs to finish.
+     * @throws RepeatRunException if any run failed.
+     */
+    public Result run(IntConsumer code) {
+        long begin = System.nanoTime();
+        Runs runs = new Runs(code);
+        if (parallelism == 1 || times <= 1) {
+            runs.work();
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                List<ForkJoinTask<?>> workers = new ArrayList<>(parallelism);
+                for (int w = 0; w < Math.min(parallelism, times); w++) {
+                    workers.add(pool.submit(runs::work));
+                }
+                for (ForkJoinTask<?> worker : workers) {
+                    worker.join();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        Result result = new Result(times, runs.numOfRuns.get(), runs.numOfFailures.get(), System.nanoTime() - begin);
+        if (result.getNumOfFailures() > 0) {
+            throw new RepeatRunException(result, runs.failures);
+        }
+        return result;
+    }
+
+    /*
+     *
+     */
+
+    /**
+     * The state of one run(), shared by the workers.
+     */
+    private class Runs {
+
+        private final IntConsumer code;
+        private final int batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, times / (parallelism * 16)));
+        /** long, so that claiming beyond times (once per worker at most) cannot overflow */
+        private final AtomicLong nextIdx = new AtomicLong();
+        private final AtomicLong numOfRuns = new AtomicLong();
+        private final AtomicInteger numOfFailures = new AtomicInteger();
+        private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        private volatile boolean cancelled = false;
+
+        Runs(IntConsumer code) {
+            this.code = code;
+        }
+
+        void work() {
+            long localRuns = 0;
+            long batchBegin;
+            while (!cancelled && (batchBegin = nextIdx.getAndAdd(batchSize)) < times) {
+                int batchEnd = (int) Math.min(batchBegin + batchSize, times);
+                for (int i = (int) batchBegin; i < batchEnd && !cancelled; i++) {
+                    localRuns++;
+                    try {
+                        code.accept(i);
+                    } catch (Throwable t) {
+                        if (numOfFailures.incrementAndGet() <= MAX_SUPPRESSED + 1) {
+                            failures.add(t);
+                        }
+                        if (failFast) {
+                            cancelled = true;
+                        }
+                    }
+                }
+            }
+            numOfRuns.addAndGet(localRuns);
+        }
+    }
+
+    /**
+     * The outcome of a run().
+     */
+    public static final class Result {
+
+        private final int times;
+        private final long numOfRuns;
+        private final int numOfFailures;
+        private final long elapsedNanos;
+
+        Result(int times, long numOfRuns, int numOfFailures, long elapsedNanos) {
+            this.times = times;
+            this.numOfRuns = numOfRuns;
+            this.numOfFailures = numOfFailures;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getTimes() {
+            return times;
+        }
+
+        /**
+         * Number of runs started, including the failed ones.
+         */
+        public long getNumOfRuns() {
+            return numOfRuns;
+        }
+
+        public int getNumOfFailures() {
+            return numOfFailures;
+        }
+
+        /**
+         * Number of runs never started because of fail fast.
+         */
+        public long getNumOfNotRun() {
+            return times - numOfRuns;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return str("{} runs, {} failed, {} not run, in {} ms", numOfRuns, numOfFailures, getNumOfNotRun(),
+                    getElapsedMillis());
+        }
+    }
+
+}
@@ -0,0 +1,281 @@
+package com.github.peiatgithub.java.utils.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <pre>
+ * A group of tasks forked together, each in its own thread, and joined together with a deadline,
+ * replacing createAndStartThread() plus threadJoin() for fan-out code.
+ *
+ * - cancelOnFailure(): join() waits for all the tasks to succeed, and returns their results in the fork order.
+ *   When a task fails, the other tasks are cancelled, and join() throws an ExecutionException.
+ * - cancelOnSuccess(): joinFirst() waits for the first task to succeed, and returns its result.
+ *   The other tasks are then cancelled. If all the tasks fail, joinFirst() throws an ExecutionException.
+ *
+ * When the deadline passes, the unfinished tasks are cancelled and a TimeoutException is thrown,
+ * so the caller never waits longer than the deadline.
+ * When the joining thread is interrupted, the unfinished tasks are cancelled and an InterruptedException is thrown.
+ * Cancelling a task interrupts its thread, the task should stop when interrupted.
+ * close() cancels the unfinished tasks too (but does not wait for their threads to end).
+ *
+ * The threads are created by a ManagedThreadFactory, by default daemon threads named "task-group-N",
+ * virtual if the JDK supports them.
+ *
+ * Example:
+ *   try (TaskGroup&lt;Quote&gt; group = TaskGroup.cancelOnSuccess()) {
+ *       for (Supplier supplier : suppliers) {
+ *           group.fork(() -> supplier.getQuote(item));
+ *       }
+ *       Quote quote = group.joinFirst(200, TimeUnit.MILLISECONDS);
+ *   }
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class TaskGroup<T> implements AutoCloseable {
+
+    private static final ManagedThreadFactory DEFAULT_THREAD_FACTORY = ManagedThreadFactory.named("task-group")
+            .daemon(true).virtual(true);
+
+    private final boolean cancelOnSuccess;
+    private ManagedThreadFactory threadFactory = DEFAULT_THREAD_FACTORY;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition doneCondition = lock.newCondition();
+    private final List<Task> tasks = new ArrayList<>();
+    private int numOfDone = 0;
+    private Task firstFailed = null;
+    private Task firstSucceeded = null;
+    private boolean cancelled = false;
+    private boolean joined = false;
+
+    private TaskGroup(boolean cancelOnSuccess) {
+        this.cancelOnSuccess = cancelOnSuccess;
+    }
+
+    /**
+     * A group in which all the tasks must succeed, see join().
+     */
+    public static <T> TaskGroup<T> cancelOnFailure() {
+        return new TaskGroup<>(false);
+    }
+
+    /**
+     * A group in which the first task to succeed wins, see joinFirst().
+     */
+    public static <T> TaskGroup<T> cancelOnSuccess() {
+        return new TaskGroup<>(true);
+    }
+
+    /**
+     * The factory creating the threads of the tasks.
+     */
+    public TaskGroup<T> threadFactory(ManagedThreadFactory threadFactory) {
+        this.threadFactory = Objects.requireNonNull(threadFactory, "threadFactory");
+        return this;
+    }
+
+    /**
+     * Start the task in a new thread.
+     * If the group is already cancelled (e.g. a task failed), the task is cancelled and not started.
+     * @throws IllegalStateException if the group was already joined or closed.
+     */
+    public Future<T> fork(Callable<? extends T> callable) {
+        Objects.requireNonNull(callable, "callable");
+        Task task = new Task(callable);
+        lock.lock();
+        try {
+            if (joined) {
+                throw new IllegalStateException("Cannot fork after join or close.");
+            }
+            tasks.add(task);
+            if (cancelled) {
+                task.cancel(false);
+                return task;
+            }
+        } finally {
+            lock.unlock();
+        }
+        threadFactory.start(task);
+        return task;
+    }
+
+    /**
+     * <pre>
+     * For a cancelOnFailure() group: wait for all the tasks to succeed, and return their results in the fork order.
+     * @throws ExecutionException with the failure of the first failed task as the cause.
+     * @throws TimeoutException if not all the tasks succeeded before the timeout (they are cancelled).
+     * @throws InterruptedException if the current thread was interrupted (the tasks are cancelled).
+     * </pre>
+     */
+    public List<T> join(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (cancelOnSuccess) {
+            throw new IllegalStateException("join() is for cancelOnFailure() groups, use joinFirst().");
+        }
+        awaitDone(unit.toNanos(timeout));
+        if (firstFailed != null) {
+            throw new ExecutionException(firstFailed.getFailure());
+        }
+        List<T> results = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            results.add(task.get());
+        }
+        return results;
+    }
+
+    /**
+     * <pre>
+     * For a cancelOnSuccess() group: wait for the first task to succeed, and return its result.
+     * @throws ExecutionException if all the tasks failed, with the first failure as the cause,
+     *         and the others as suppressed exceptions.
+     * @throws TimeoutException if no task succeeded before the timeout (they are cancelled).
+     * @throws InterruptedException if the current thread was interrupted (the tasks are cancelled).
+     * </pre>
+     */
+    public T joinFirst(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!cancelOnSuccess) {
+            throw new IllegalStateException("joinFirst() is for cancelOnSuccess() groups, use join().");
+        }
+        awaitDone(unit.toNanos(timeout));
+        if (firstSucceeded != null) {
+            return firstSucceeded.get();
+        }
+        // all the tasks failed, or were cancelled
+        Task first = (firstFailed != null || tasks.isEmpty()) ? firstFailed : tasks.get(0);
+        ExecutionException e = new ExecutionException("All the " + tasks.size() + " tasks failed.",
+                first == null ? null : first.getFailure());
+        for (Task task : tasks) {
+            if (task != first) {
+                e.addSuppressed(task.getFailure());
+            }
+        }
+        throw e;
+    }
+
+    /**
+     * Cancel the unfinished tasks, no more task can be forked.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            joined = true;
+            cancelAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     *
+     */
+
+    private void awaitDone(long timeoutNanos) throws InterruptedException, TimeoutException {
+        lock.lock();
+        try {
+            joined = true;
+            long remaining = timeoutNanos;
+            while (!isDone()) {
+                if (remaining <= 0) {
+                    String message = (tasks.size() - numOfDone) + " of " + tasks.size()
+                            + " tasks not done before the timeout.";
+                    cancelAll();
+                    throw new TimeoutException(message);
+                }
+                try {
+                    remaining = doneCondition.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    cancelAll();
+                    throw e;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Must hold the lock.
+     */
+    private boolean isDone() {
+        if (cancelOnSuccess) {
+            return firstSucceeded != null || numOfDone == tasks.size();
+        } else {
+            return firstFailed != null || numOfDone == tasks.size();
+        }
+    }
+
+    /**
+     * Must hold the lock.
+     */
+    private void cancelAll() {
+        if (!cancelled) {
+            cancelled = true;
+            for (Task task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    private void onDone(Task task) {
+        lock.lock();
+        try {
+            numOfDone++;
+            if (!task.isCancelled()) {
+                if (task.failure == null) {
+                    if (firstSucceeded == null) {
+                        firstSucceeded = task;
+                        if (cancelOnSuccess) {
+                            cancelAll();
+                        }
+                    }
+                } else if (firstFailed == null) {
+                    firstFailed = task;
+                    if (!cancelOnSuccess) {
+                        cancelAll();
+                    }
+                }
+            }
+            doneCondition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private class Task extends FutureTask<T> {
+
+        private volatile Throwable failure = null;
+
+        Task(Callable<? extends T> callable) {
+            super(callable::call);
+        }
+
+        Throwable getFailure() {
+            return isCancelled() ? new CancellationException() : failure;
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            failure = t;
+            super.setException(t);
+        }
+
+        @Override
+        protected void done() {
+            onDone(this);
+        }
+    }
+
+}
@@ -7,6 +7,7 @@ import static com.github.peiatgithub.java.utils.Utils.encloseString;
 import static com.github.peiatgithub.java.utils.Utils.str;
 
 import com.github.peiatgithub.java.utils.Encloser;
+import com.github.peiatgithub.java.utils.text.StrTemplate;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -23,6 +24,10 @@ import lombok.Setter;
 @Getter
 public class SqlCondition extends LastStep {
 
+    private static final StrTemplate EQUAL_TO = StrTemplate.compile("= {}");
+    private static final StrTemplate NOT_EQUAL_TO = StrTemplate.compile("<> {}");
+    private static final StrTemplate BETWEEN = StrTemplate.compile("BETWEEN {} AND {}");
+
     private StringBuilder condition = new StringBuilder();
 
     /**
@@ -55,7 +60,7 @@ public class SqlCondition extends LastStep {
     }
 
     public SqlCondition equalTo(Number operand2) {
-        return append(str("= {}", operand2));
+        return append(EQUAL_TO, operand2);
     }
 
     public SqlCondition notEqualTo(String operand2) {
@@ -63,7 +68,7 @@ public class SqlCondition extends LastStep {
     }
 
     public SqlCondition notEqualTo(Number operand2) {
-        return append(str("<> {}", operand2));
+        return append(NOT_EQUAL_TO, operand2);
     }
 
     public SqlCondition greaterThan(String operand2) {
@@ -103,7 +108,11 @@ public class SqlCondition extends LastStep {
     }
 
     public SqlCondition between(Number from, Number to) {
-        return append(str("BETWEEN {} AND {}", from, to));
+        if (isIntegral(from) && isIntegral(to)) {
+            BETWEEN.appendTo(this.condition, from.longValue(), to.longValue());
+            return this;
+        }
+        return append(BETWEEN.render(from, to));
     }
 
     public SqlCondition like(String pattern) {
@@ -201,4 +210,20 @@ public class SqlCondition extends LastStep {
         return this;
     }
 
+    /**
+     * Integral numbers are appended as primitive long, without creating a String.
+     */
+    private SqlCondition append(StrTemplate template, Number operand) {
+        if (isIntegral(operand)) {
+            template.appendTo(this.condition, operand.longValue());
+        } else {
+            template.appendTo(this.condition, operand);
+        }
+        return this;
+    }
+
+    private static boolean isIntegral(Number n) {
+        return n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte;
+    }
+
 }
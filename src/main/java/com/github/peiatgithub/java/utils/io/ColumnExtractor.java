@@ -0,0 +1,380 @@
+package com.github.peiatgithub.java.utils.io;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import com.github.peiatgithub.java.utils.io.LineSplitter.Chunk;
+
+/**
+ * <pre>
+ * Extracts fields from every line of a (big) delimited file,
+ * with the same semantics as Utils.getSubString(line, delimiter, n1, n2) for each field range.
+ *
+ * The file is memory-mapped and split into line-aligned chunks,
+ * and the chunks are processed in parallel, one chunk per thread at a time.
+ * Lines end with LF, CR or CRLF.
+ *
+ * The charset must encode the delimiter, CR and LF the same way as ASCII does,
+ * e.g. UTF-8, ISO-8859-1, US-ASCII.
+ *
+ * Example:
+ *   ColumnExtractor extractor = new ColumnExtractor(",", StandardCharsets.UTF_8)
+ *           .range(-1, 0).range(2, 3); // the 1st and the 4th column
+ *
+ *   // fields of each line to a callback, called from many threads in no particular order
+ *   extractor.extract(file, fields -> ...);
+ *
+ *   // fields of each line to an output file, in the order of the input lines
+ *   extractor.extractTo(file, outputFile, ";");
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public class ColumnExtractor {
+
+    /** Max bytes of a chunk, i.e. of a single mapping, a line must not be longer than this */
+    public static final int MAX_CHUNK_SIZE = 256 * 1024 * 1024;
+
+    /** Default bytes of a chunk, the chunk is then extended to the end of its last line */
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final byte[] delimiter;
+    /** getSubString() begins a field 1 char after the delimiter begins */
+    private final int firstDelimiterCharLength;
+    private final Charset charset;
+
+    private final List<int[]> ranges = new ArrayList<>();
+    private int maxN2 = -1;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * @param delimiter must not be null or empty.
+     */
+    public ColumnExtractor(String delimiter, Charset charset) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException(ARGUMENT_MUST_NOT_BE_NULL_OR_EMPTY);
+        }
+        this.charset = charset;
+        this.delimiter = delimiter.getBytes(charset);
+        this.firstDelimiterCharLength = delimiter.substring(0, 1).getBytes(charset).length;
+    }
+
+    /**
+     * Add a field: the sub String between the n1th and the n2th delimiter,
+     * same as Utils.getSubString(line, delimiter, n1, n2).
+     */
+    public ColumnExtractor range(int n1, int n2) {
+        ranges.add(new int[] { n1, n2 });
+        maxN2 = Math.max(maxN2, n2);
+        return this;
+    }
+
+    /**
+     * Number of threads processing chunks, defaults to the number of processors.
+     */
+    public ColumnExtractor parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Approximate bytes of a chunk, defaults to DEFAULT_CHUNK_SIZE.
+     */
+    public ColumnExtractor chunkSize(int chunkSize) {
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE / 2) {
+            throw new IllegalArgumentException("Chunk size must be in range of [1, MAX_CHUNK_SIZE / 2].");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * <pre>
+     * Extract the fields of every line, and pass them (in the order of the added ranges)
+     * to the consumer.
+     * The consumer is called concurrently from the worker threads,
+     * and the lines come in no particular order.
+     * </pre>
+     */
+    public void extract(File file, Consumer<String[]> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<Chunk> chunks = splitToChunks(channel);
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                List<Future<Void>> futures = new ArrayList<>();
+                for (Chunk chunk : chunks) {
+                    futures.add(executor.submit(() -> {
+                        processChunk(channel, chunk, new FieldsToConsumer(consumer, ranges.size()));
+                        return null;
+                    }));
+                }
+                for (Future<Void> future : futures) {
+                    await(future);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * <pre>
+     * Extract the fields of every line, and write them to the output file,
+     * one line (ending with LF) for each input line, in the order of the input lines.
+     * The fields are separated by the outputSeparator and copied as bytes, without decoding.
+     * An existing output file is overwritten.
+     * </pre>
+     */
+    public void extractTo(File file, File outputFile, String outputSeparator) throws IOException {
+        byte[] separator = safeSeparator(outputSeparator).getBytes(charset);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                OutputStream out = new FileOutputStream(outputFile)) {
+            List<Chunk> chunks = splitToChunks(channel);
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                // a bounded window of chunks in flight, written out in order
+                Deque<Future<ByteArrayOutputStream>> window = new ArrayDeque<>();
+                for (Chunk chunk : chunks) {
+                    if (window.size() >= parallelism * 2) {
+                        await(window.poll()).writeTo(out);
+                    }
+                    window.add(executor.submit(chunkToBytes(channel, chunk, separator)));
+                }
+                while (!window.isEmpty()) {
+                    await(window.poll()).writeTo(out);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /*
+     *
+     */
+
+    private Callable<ByteArrayOutputStream> chunkToBytes(FileChannel channel, Chunk chunk, byte[] separator) {
+        return () -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) (chunk.length() / 2 + 16));
+            processChunk(channel, chunk, new FieldsToBytes(bytes, separator));
+            return bytes;
+        };
+    }
+
+    /**
+     * Split the file into line-aligned chunks of about chunkSize (smaller for a small file,
+     * so that all threads get work).
+     */
+    private List<Chunk> splitToChunks(FileChannel channel) throws IOException {
+        long targetSize = Math.max(1, Math.min(chunkSize, channel.size() / parallelism));
+        List<Chunk> chunks = LineSplitter.split(channel, targetSize);
+        for (Chunk chunk : chunks) {
+            if (chunk.length() > MAX_CHUNK_SIZE) {
+                throw new IOException("Line too long, more than " + MAX_CHUNK_SIZE + " bytes, at " + chunk.getBegin());
+            }
+        }
+        return chunks;
+    }
+
+    private void processChunk(FileChannel channel, Chunk chunk, LineFieldsHandler handler) throws IOException {
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, chunk.getBegin(), chunk.length());
+        handler.setBuffer(buf);
+        int[] delimiterIdxs = new int[maxN2 + 1];
+        int limit = buf.limit();
+        int lineBegin = 0;
+        while (lineBegin < limit) {
+            int lineEnd = lineBegin;
+            while (lineEnd < limit && buf.get(lineEnd) != LF && buf.get(lineEnd) != CR) {
+                lineEnd++;
+            }
+            int numOfDelimiters = indexDelimiters(buf, lineBegin, lineEnd, delimiterIdxs);
+            handler.beginLine();
+            for (int r = 0; r < ranges.size(); r++) {
+                int n1 = ranges.get(r)[0];
+                int n2 = ranges.get(r)[1];
+                if (n1 < n2 && n2 >= 0 && n2 < numOfDelimiters) {
+                    int begin = (n1 < 0) ? lineBegin : delimiterIdxs[n1] + firstDelimiterCharLength;
+                    handler.field(r, begin, delimiterIdxs[n2]);
+                } else {
+                    handler.field(r, 0, 0);
+                }
+            }
+            handler.endLine();
+            // skip the line break, CRLF counts as one
+            if (lineEnd < limit && buf.get(lineEnd) == CR && lineEnd + 1 < limit && buf.get(lineEnd + 1) == LF) {
+                lineEnd++;
+            }
+            lineBegin = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Find the first (maxN2 + 1) delimiters of the line, searching from 1 byte after the
+     * previous one like getSubString() does. Returns the number found.
+     */
+    private int indexDelimiters(ByteBuffer buf, int lineBegin, int lineEnd, int[] delimiterIdxs) {
+        int found = 0;
+        int i = lineBegin;
+        while (found < delimiterIdxs.length && i + delimiter.length <= lineEnd) {
+            if (matchesDelimiter(buf, i)) {
+                delimiterIdxs[found++] = i;
+            }
+            i++;
+        }
+        return found;
+    }
+
+    private boolean matchesDelimiter(ByteBuffer buf, int idx) {
+        for (int j = 0; j < delimiter.length; j++) {
+            if (buf.get(idx + j) != delimiter[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String safeSeparator(String separator) {
+        return (separator == null) ? EMPTY : separator;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Receives the fields of the lines of one chunk, in order.
+     */
+    private abstract static class LineFieldsHandler {
+
+        /** a view of the chunk buffer, for bulk copying of field bytes */
+        private ByteBuffer view;
+        protected byte[] bytes = new byte[256];
+
+        void setBuffer(ByteBuffer buf) {
+            this.view = buf.duplicate();
+        }
+
+        void beginLine() {
+        }
+
+        /** bytes [begin, end) of the chunk, empty if begin == end */
+        abstract void field(int rangeIdx, int begin, int end) throws IOException;
+
+        abstract void endLine() throws IOException;
+
+        /** copy bytes [begin, end) of the chunk to the beginning of the bytes array */
+        protected int copyBytes(int begin, int end) {
+            int len = end - begin;
+            if (bytes.length < len) {
+                bytes = new byte[Math.max(len, bytes.length * 2)];
+            }
+            view.limit(end);
+            view.position(begin);
+            view.get(bytes, 0, len);
+            return len;
+        }
+    }
+
+    private class FieldsToConsumer extends LineFieldsHandler {
+
+        private final Consumer<String[]> consumer;
+        private final int numOfFields;
+        private String[] fields;
+
+        FieldsToConsumer(Consumer<String[]> consumer, int numOfFields) {
+            this.consumer = consumer;
+            this.numOfFields = numOfFields;
+        }
+
+        @Override
+        void beginLine() {
+            fields = new String[numOfFields];
+        }
+
+        @Override
+        void field(int rangeIdx, int begin, int end) {
+            if (begin == end) {
+                fields[rangeIdx] = EMPTY;
+            } else {
+                int len = copyBytes(begin, end); // may grow bytes
+                fields[rangeIdx] = new String(bytes, 0, len, charset);
+            }
+        }
+
+        @Override
+        void endLine() {
+            consumer.accept(fields);
+        }
+    }
+
+    private static class FieldsToBytes extends LineFieldsHandler {
+
+        private final ByteArrayOutputStream out;
+        private final byte[] separator;
+
+        FieldsToBytes(ByteArrayOutputStream out, byte[] separator) {
+            this.out = out;
+            this.separator = separator;
+        }
+
+        @Override
+        void field(int rangeIdx, int begin, int end) {
+            if (rangeIdx > 0) {
+                out.write(separator, 0, separator.length);
+            }
+            if (begin < end) {
+                int len = copyBytes(begin, end); // may grow bytes
+                out.write(bytes, 0, len);
+            }
+        }
+
+        @Override
+        void endLine() {
+            out.write(LF);
+        }
+    }
+
+}
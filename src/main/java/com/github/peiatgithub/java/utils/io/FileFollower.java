@@ -0,0 +1,458 @@
+package com.github.peiatgithub.java.utils.io;
+
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * <pre>
+ * Follows growing files (like "tail -F"), passing every newly appended complete line to a consumer.
+ *
+ * Each file's byte offset is remembered, and only the bytes appended since the last check are read.
+ * Lines end with LF, CR or CRLF; a line is passed only when its line break has been written.
+ * A file is read from the beginning again when it is
+ *   truncated (its size gets smaller than the offset), or
+ *   rotated (the path points to another file, e.g. renamed and re-created): the rest of the old file
+ *   is read first, and its unfinished last line (if any) is passed as a line.
+ * A file which does not exist (yet) is followed from its beginning when it appears.
+ *
+ * One thread follows all the files: it waits for changes notified by a WatchService on the parent
+ * directories, and checks all the files every poll interval anyway, in case the file system does not
+ * notify (or there is no WatchService at all).
+ * The consumers are called from that thread, so they should return quickly.
+ *
+ * The charset must encode CR and LF the same way as ASCII does, e.g. UTF-8, ISO-8859-1, US-ASCII.
+ *
+ * Example:
+ *   FileFollower follower = new FileFollower(StandardCharsets.UTF_8)
+ *           .follow(appLog, line -> ...)
+ *           .follow(accessLog, line -> ...)
+ *           .start();
+ *   ...
+ *   follower.close();
+ *
+ * Without start(), call poll() to check all the files once in the calling thread.
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public class FileFollower implements Closeable {
+
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 1000;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final Charset charset;
+    private final Map<Path, Followed> files = new ConcurrentHashMap<>();
+    private final WatchService watchService;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+    private volatile long pollIntervalMillis = DEFAULT_POLL_INTERVAL_MILLIS;
+    private volatile BiConsumer<File, Exception> errorHandler = (file, e) -> printlnWithThreadName(
+            str("Failed to follow {}: {}", file, e));
+    private volatile boolean closed = false;
+    private Thread thread;
+
+    public FileFollower(Charset charset) {
+        this.charset = charset;
+        WatchService ws;
+        try {
+            ws = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            ws = null; // polling only
+        }
+        this.watchService = ws;
+    }
+
+    /**
+     * How often all the files are checked even without change notifications,
+     * defaults to DEFAULT_POLL_INTERVAL_MILLIS.
+     */
+    public FileFollower pollInterval(long millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("Poll interval must be at least 1 millisecond.");
+        }
+        this.pollIntervalMillis = millis;
+        return this;
+    }
+
+    /**
+     * Called with the file and the exception when reading a file fails (the file is checked again later),
+     * or a consumer throws. Defaults to printing the error.
+     */
+    public FileFollower onError(BiConsumer<File, Exception> errorHandler) {
+        this.errorHandler = Objects.requireNonNull(errorHandler);
+        return this;
+    }
+
+    /**
+     * Follow the file from its end, i.e. pass only the lines completed after this call
+     * (including the currently unfinished last line).
+     */
+    public FileFollower follow(File file, Consumer<String> consumer) throws IOException {
+        return follow(file, false, consumer);
+    }
+
+    /**
+     * Follow the file, from its beginning or from its end.
+     * Following a file again replaces its consumer and restarts it.
+     */
+    public FileFollower follow(File file, boolean fromBeginning, Consumer<String> consumer) throws IOException {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        Followed followed = new Followed(path, Objects.requireNonNull(consumer));
+        if (!fromBeginning) {
+            followed.openIfExists();
+            if (followed.channel != null) {
+                followed.startFromLastLine();
+            }
+        }
+        registerDirectory(path.getParent());
+        synchronized (this) {
+            Followed old = files.put(path, followed);
+            if (old != null) {
+                old.closeChannel();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Stop following the file.
+     */
+    public synchronized void unfollow(File file) {
+        Followed followed = files.remove(file.toPath().toAbsolutePath().normalize());
+        if (followed != null) {
+            followed.closeChannel();
+        }
+    }
+
+    /**
+     * Start the follower thread (a daemon thread), which checks the files until close().
+     */
+    public synchronized FileFollower start() {
+        if (thread != null || closed) {
+            throw new IllegalStateException("Follower already started or closed.");
+        }
+        thread = new Thread(this::run, "FileFollower");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    /**
+     * Check all the files once, passing their new lines to the consumers.
+     * Returns the number of lines passed.
+     * (After start(), the follower thread does it.)
+     */
+    public synchronized int poll() {
+        int numOfLines = 0;
+        for (Followed followed : files.values()) {
+            numOfLines += check(followed);
+        }
+        return numOfLines;
+    }
+
+    /**
+     * Stop the follower thread (waiting for it to finish) and close all the files.
+     */
+    @Override
+    public void close() {
+        Thread t;
+        synchronized (this) {
+            closed = true;
+            t = thread;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+        if (t != null && t != Thread.currentThread()) {
+            threadJoin(t);
+        }
+        synchronized (this) {
+            for (Followed followed : files.values()) {
+                followed.closeChannel();
+            }
+        }
+    }
+
+    /*
+     *
+     */
+
+    private void run() {
+        long lastFullCheck = System.nanoTime();
+        while (!closed) {
+            WatchKey key = null;
+            try {
+                if (watchService != null) {
+                    key = watchService.poll(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                } else {
+                    Thread.sleep(pollIntervalMillis);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            }
+            try {
+                for (; key != null && !closed; key = watchService.poll()) {
+                    checkChanged(key);
+                }
+            } catch (ClosedWatchServiceException e) {
+                break;
+            }
+            if (closed) {
+                break;
+            }
+            long now = System.nanoTime();
+            if (now - lastFullCheck >= TimeUnit.MILLISECONDS.toNanos(pollIntervalMillis)) {
+                poll();
+                lastFullCheck = now;
+            }
+        }
+    }
+
+    private synchronized void checkChanged(WatchKey key) {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                poll();
+            } else {
+                Followed followed = files.get(dir.resolve((Path) event.context()));
+                if (followed != null) {
+                    check(followed);
+                }
+            }
+        }
+        key.reset();
+    }
+
+    private void registerDirectory(Path dir) {
+        if (watchService == null || dir == null) {
+            return;
+        }
+        try {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException | ClosedWatchServiceException e) {
+            // the directory is polled
+        }
+    }
+
+    /**
+     * Read the new bytes of the file, returns the number of lines passed to the consumer.
+     */
+    private int check(Followed followed) {
+        try {
+            return followed.check();
+        } catch (IOException | RuntimeException e) {
+            followed.closeChannel();
+            errorHandler.accept(followed.path.toFile(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * A followed file, accessed holding the FileFollower lock once it is followed.
+     */
+    private class Followed {
+
+        private final Path path;
+        private final Consumer<String> consumer;
+
+        private FileChannel channel;
+        /** fileKey (e.g. the inode) or creation time, tells if the path points to another file */
+        private Object identity;
+        private long position = 0;
+        /** bytes of the unfinished line */
+        private byte[] partial = new byte[256];
+        private int partialLength = 0;
+        /** the last byte read was a CR, so a following LF is a part of that line break */
+        private boolean skipLf = false;
+        private int numOfLines;
+
+        Followed(Path path, Consumer<String> consumer) {
+            this.path = path;
+            this.consumer = consumer;
+        }
+
+        int check() throws IOException {
+            numOfLines = 0;
+            BasicFileAttributes attrs = readAttributes();
+            Object currentIdentity = (attrs == null) ? null : identity(attrs);
+            if (channel != null && !Objects.equals(currentIdentity, identity)) {
+                // rotated or deleted: finish the old file, then start the new one from its beginning
+                readNewBytes();
+                if (partialLength > 0) {
+                    emitPartial();
+                }
+                closeChannel();
+                restart();
+            }
+            if (attrs == null) {
+                return numOfLines;
+            }
+            if (channel == null) {
+                openIfExists();
+            }
+            if (channel != null) {
+                if (channel.size() < position) {
+                    restart(); // truncated
+                }
+                readNewBytes();
+            }
+            return numOfLines;
+        }
+
+        void openIfExists() throws IOException {
+            BasicFileAttributes attrs = readAttributes();
+            if (attrs != null) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+                identity = identity(attrs);
+            }
+        }
+
+        /**
+         * Start from the begin of the unfinished last line. If the file ends with a CR,
+         * an LF appended later completes that line break, it is not an empty line.
+         */
+        void startFromLastLine() throws IOException {
+            position = FileTail.lastLinesBegin(channel, 1);
+            if (position > 0) {
+                ByteBuffer lastByte = ByteBuffer.allocate(1);
+                channel.read(lastByte, position - 1);
+                skipLf = (lastByte.get(0) == CR);
+            }
+        }
+
+        void closeChannel() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // nothing to do
+                }
+                channel = null;
+            }
+        }
+
+        private void restart() {
+            position = 0;
+            partialLength = 0;
+            skipLf = false;
+        }
+
+        private BasicFileAttributes readAttributes() throws IOException {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+
+        private Object identity(BasicFileAttributes attrs) {
+            Object fileKey = attrs.fileKey();
+            return (fileKey != null) ? fileKey : attrs.creationTime();
+        }
+
+        private void readNewBytes() throws IOException {
+            long size = channel.size();
+            while (position < size) {
+                readBuffer.clear();
+                int n = channel.read(readBuffer, position);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+                emitLines(readBuffer.array(), n);
+            }
+        }
+
+        private void emitLines(byte[] bytes, int length) {
+            int lineBegin = 0;
+            if (skipLf) {
+                skipLf = false;
+                if (bytes[0] == LF) {
+                    lineBegin = 1;
+                }
+            }
+            for (int i = lineBegin; i < length; i++) {
+                byte b = bytes[i];
+                if (b == LF || b == CR) {
+                    emit(bytes, lineBegin, i);
+                    if (b == CR) {
+                        if (i + 1 == length) {
+                            skipLf = true;
+                        } else if (bytes[i + 1] == LF) {
+                            i++;
+                        }
+                    }
+                    lineBegin = i + 1;
+                }
+            }
+            appendPartial(bytes, lineBegin, length);
+        }
+
+        private void emit(byte[] bytes, int begin, int end) {
+            if (partialLength == 0) {
+                accept(new String(bytes, begin, end - begin, charset));
+            } else {
+                appendPartial(bytes, begin, end);
+                emitPartial();
+            }
+        }
+
+        private void emitPartial() {
+            String line = new String(partial, 0, partialLength, charset);
+            partialLength = 0;
+            accept(line);
+        }
+
+        private void accept(String line) {
+            numOfLines++;
+            try {
+                consumer.accept(line);
+            } catch (RuntimeException e) {
+                errorHandler.accept(path.toFile(), e);
+            }
+        }
+
+        private void appendPartial(byte[] bytes, int begin, int end) {
+            int length = end - begin;
+            if (partialLength + length > partial.length) {
+                partial = Arrays.copyOf(partial, Math.max(partialLength + length, partial.length * 2));
+            }
+            System.arraycopy(bytes, begin, partial, partialLength, length);
+            partialLength += length;
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.github.peiatgithub.java.utils.io;
+
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <pre>
+ * Reads the last lines of a (big) file, reading it backwards in blocks of BLOCK_SIZE bytes,
+ * so the cost depends on the length of the lines read, not on the size of the file.
+ *
+ * Lines end with LF, CR or CRLF. A file ending with a line break has an empty last line,
+ * and an empty file has one empty line (same as Utils.getLastLineOfFile()).
+ *
+ * The charset must encode CR and LF the same way as ASCII does,
+ * e.g. UTF-8, ISO-8859-1, US-ASCII.
+ *
+ * Example:
+ *   List&lt;String&gt; lines = FileTail.lastLines(logFile, 10, StandardCharsets.UTF_8);
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class FileTail {
+
+    /** Bytes read at a time when searching line breaks backwards */
+    public static final int BLOCK_SIZE = 8 * 1024;
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private FileTail() {
+        throw new RuntimeException();
+    }
+
+    /**
+     * The last line of the file, empty if the file is empty or ends with a line break.
+     */
+    public static String lastLine(File file, Charset charset) throws IOException {
+        return lastLines(file, 1, charset).get(0);
+    }
+
+    /**
+     * The last n lines of the file in file order, or all the lines if the file has fewer.
+     * Returns an empty list if n is not positive.
+     */
+    public static List<String> lastLines(File file, int n, Charset charset) throws IOException {
+        if (n <= 0) {
+            return Collections.emptyList();
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long begin = lastLinesBegin(channel, n);
+            if (size - begin > Integer.MAX_VALUE - 8) {
+                throw new IOException("Last " + n + " lines too long: " + (size - begin) + " bytes");
+            }
+            ByteBuffer buf = ByteBuffer.allocate((int) (size - begin));
+            readFully(channel, buf, begin);
+            return splitLines(new String(buf.array(), 0, buf.position(), charset));
+        }
+    }
+
+    /**
+     * <pre>
+     * The position where the last n lines of the file begin, i.e. the end of the nth line break
+     * counted from the end of the file, or 0 if the file has fewer line breaks.
+     * n must be positive.
+     * </pre>
+     */
+    public static long lastLinesBegin(FileChannel channel, int n) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(BLOCK_SIZE);
+        long blockBegin = channel.size();
+        int numOfBreaks = 0;
+        int nextByte = -1; // the byte after the current one, -1 at the end of the file
+        while (blockBegin > 0) {
+            int blockLength = (int) Math.min(BLOCK_SIZE, blockBegin);
+            blockBegin -= blockLength;
+            buf.clear().limit(blockLength);
+            readFully(channel, buf, blockBegin);
+            for (int i = blockLength - 1; i >= 0; i--) {
+                byte b = buf.get(i);
+                // LF is a break, CR is a break unless it begins a CRLF
+                if (isLineFeed((char) b) || (isCarriageReturn((char) b) && nextByte != LF)) {
+                    if (++numOfBreaks == n) {
+                        return blockBegin + i + 1;
+                    }
+                }
+                nextByte = b;
+            }
+        }
+        return 0;
+    }
+
+    /*
+     *
+     */
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position + buf.position());
+            if (n < 0) {
+                throw new EOFException("File truncated while reading at " + (position + buf.position()));
+            }
+        }
+    }
+
+    /**
+     * Split on LF, CR or CRLF, the text after the last break is the last line (maybe empty).
+     */
+    private static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        int lineBegin = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isLineFeed(c) || isCarriageReturn(c)) {
+                lines.add(text.substring(lineBegin, i));
+                if (isCarriageReturn(c) && i + 1 < text.length() && isLineFeed(text.charAt(i + 1))) {
+                    i++;
+                }
+                lineBegin = i + 1;
+            }
+        }
+        lines.add(text.substring(lineBegin));
+        return lines;
+    }
+
+}
@@ -0,0 +1,602 @@
+package com.github.peiatgithub.java.utils.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * <pre>
+ * An index of the line begin offsets of a (huge) text file, for reading any line, or range of lines,
+ * with one positional read.
+ *
+ * The index is kept in a sidecar file next to the file (file name + SIDECAR_SUFFIX), as the
+ * delta-encoded (varint) line lengths, usually 1 or 2 bytes per line. open() loads the sidecar
+ * if it is still valid for the file (otherwise the file is indexed from the beginning),
+ * and extend() indexes the bytes appended since, so an index of a growing file is never rebuilt.
+ * If the sidecar cannot be read or written (e.g. a read-only directory), the index works in memory only.
+ * Big scans are done in parallel chunks.
+ *
+ * Lines end with LF, CR or CRLF, and are numbered from 0. Same as Utils.getLastLineOfFile(),
+ * a file ending with a line break has an empty last line, and an empty file has one empty line.
+ * The charset must encode CR and LF the same way as ASCII does, e.g. UTF-8, ISO-8859-1, US-ASCII.
+ *
+ * Lookups can run concurrently, extend() waits for them.
+ *
+ * Example:
+ *   try (LineIndex index = LineIndex.open(hugeFile, StandardCharsets.UTF_8)) {
+ *       String line = index.getLine(123_456_789);
+ *       ...
+ *       index.extend(); // the file has grown
+ *   }
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class LineIndex implements Closeable {
+
+    public static final String SIDECAR_SUFFIX = ".lidx";
+
+    /** Appended bytes less than this are scanned in the calling thread */
+    public static final long PARALLEL_THRESHOLD = 64L * 1024 * 1024;
+
+    private static final int MAGIC = 0x4C494458; // "LIDX"
+    private static final int VERSION = 1;
+    /** magic, version, indexed size, number of lines, tail CRC */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8;
+    /** bytes before the indexed size checked to tell if the sidecar still belongs to the file */
+    private static final int CRC_LENGTH = 4096;
+    /** the begin offset of every CHECKPOINT_INTERVAL-th line is kept in memory */
+    private static final int CHECKPOINT_INTERVAL = 64;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final File file;
+    private final File sidecar;
+    private final Charset charset;
+    private final int parallelism;
+    private final FileChannel channel;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** varint deltas between line begins, the nth delta is begin(n + 1) - begin(n) */
+    private byte[] deltas = new byte[1024];
+    private int deltasLength = 0;
+    /** position in deltas of the last delta */
+    private int lastDeltaPos = 0;
+    /** deltas already in the sidecar */
+    private int savedDeltasLength = 0;
+    private long[] checkpointBegins = new long[16];
+    private int[] checkpointPositions = new int[16];
+    private long numOfLines = 1;
+    private long lastLineBegin = 0;
+    private long indexedSize = 0;
+    private long tailCrc = 0;
+
+    private LineIndex(File file, Charset charset, int parallelism) throws IOException {
+        this.file = file;
+        this.sidecar = new File(file.getPath() + SIDECAR_SUFFIX);
+        this.charset = charset;
+        this.parallelism = parallelism;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    /**
+     * Same as open(file, charset, number of processors).
+     */
+    public static LineIndex open(File file, Charset charset) throws IOException {
+        return open(file, charset, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * <pre>
+     * Load the index of the file from its sidecar, or create the index if the sidecar does not exist
+     * or does not match the file (e.g. the file has been truncated or replaced).
+     * Then index the rest of the file and save the sidecar (if it can be written).
+     * </pre>
+     * @param parallelism number of threads scanning big files.
+     */
+    public static LineIndex open(File file, Charset charset, int parallelism) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        }
+        LineIndex index = new LineIndex(file, charset, parallelism);
+        try {
+            index.load();
+            index.extend();
+        } catch (IOException | RuntimeException e) {
+            index.close();
+            throw e;
+        }
+        return index;
+    }
+
+    /**
+     * <pre>
+     * Index the bytes appended to the file since the last indexing, and save the sidecar (if it can be written).
+     * If the file has been truncated or replaced, it is indexed again from the beginning.
+     * Returns the number of lines added.
+     * </pre>
+     */
+    public long extend() throws IOException {
+        lock.writeLock().lock();
+        try {
+            long oldNumOfLines = numOfLines;
+            if (channel.size() < indexedSize || tailCrc(indexedSize) != tailCrc) {
+                reset();
+                oldNumOfLines = numOfLines;
+            }
+            long size = channel.size();
+            if (size > indexedSize) {
+                scan(indexedSize, size);
+                indexedSize = size;
+                tailCrc = tailCrc(indexedSize);
+            }
+            try {
+                save();
+            } catch (IOException e) {
+                // the sidecar is only a cache, keep the index in memory
+                savedDeltasLength = 0;
+            }
+            return numOfLines - oldNumOfLines;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public File getSidecar() {
+        return sidecar;
+    }
+
+    /**
+     * Number of lines of the file as indexed.
+     */
+    public long getNumOfLines() {
+        lock.readLock().lock();
+        try {
+            return numOfLines;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Size of the file as indexed.
+     */
+    public long getIndexedSize() {
+        lock.readLock().lock();
+        try {
+            return indexedSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Offset in the file where the nth line begins.
+     */
+    public long getLineBegin(long n) {
+        lock.readLock().lock();
+        try {
+            checkLineNumber(n);
+            return lineBegin(n);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The nth line, without the line break.
+     */
+    public String getLine(long n) throws IOException {
+        return getLines(n, n + 1).get(0);
+    }
+
+    /**
+     * The lines [from, to), without the line breaks, read with one positional read.
+     */
+    public List<String> getLines(long from, long to) throws IOException {
+        lock.readLock().lock();
+        try {
+            checkLineNumber(from);
+            if (to < from || to > numOfLines) {
+                throw new IndexOutOfBoundsException("to " + to + ", from " + from + ", lines " + numOfLines);
+            }
+            List<String> lines = new ArrayList<>((int) Math.min(to - from, 1024));
+            if (from == to) {
+                return lines;
+            }
+            long begin = lineBegin(from);
+            long end = (to < numOfLines) ? lineBegin(to) : indexedSize;
+            if (end - begin > Integer.MAX_VALUE - 8) {
+                throw new IOException("Lines too long: " + (end - begin) + " bytes");
+            }
+            byte[] bytes = readFully(begin, (int) (end - begin));
+            // walk the deltas from the checkpoint of the "from" line
+            int checkpoint = (int) (from / CHECKPOINT_INTERVAL);
+            int pos = checkpointPositions[checkpoint];
+            long lineBegin = checkpointBegins[checkpoint];
+            for (long i = (long) checkpoint * CHECKPOINT_INTERVAL; i < from; i++) {
+                lineBegin += readVarint(deltas, pos);
+                pos = nextVarint(deltas, pos);
+            }
+            for (long i = from; i < to; i++) {
+                long lineEnd = end;
+                if (i + 1 < numOfLines) {
+                    lineEnd = lineBegin + readVarint(deltas, pos);
+                    pos = nextVarint(deltas, pos);
+                }
+                lines.add(decodeLine(bytes, (int) (lineBegin - begin), (int) (lineEnd - begin)));
+                lineBegin = lineEnd;
+            }
+            return lines;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /*
+     *
+     */
+
+    private void reset() {
+        deltasLength = 0;
+        lastDeltaPos = 0;
+        savedDeltasLength = 0;
+        numOfLines = 1;
+        lastLineBegin = 0;
+        indexedSize = 0;
+        tailCrc = 0;
+        checkpointBegins[0] = 0;
+        checkpointPositions[0] = 0;
+    }
+
+    /**
+     * Load the sidecar, leave the index empty if there is no valid (or readable) sidecar.
+     */
+    private void load() {
+        reset();
+        if (!sidecar.isFile() || sidecar.length() < HEADER_SIZE || sidecar.length() - HEADER_SIZE > Integer.MAX_VALUE) {
+            return;
+        }
+        try (FileChannel in = FileChannel.open(sidecar.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(in, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return;
+            }
+            long savedIndexedSize = header.getLong();
+            long savedNumOfLines = header.getLong();
+            long savedTailCrc = header.getLong();
+            if (savedIndexedSize > channel.size() || tailCrc(savedIndexedSize) != savedTailCrc) {
+                return; // not for this file any more
+            }
+            ByteBuffer body = ByteBuffer.allocate((int) (in.size() - HEADER_SIZE));
+            readFully(in, body, HEADER_SIZE);
+            byte[] bytes = body.array();
+            long begin = 0;
+            for (int pos = 0; pos < bytes.length;) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    if (pos == bytes.length || shift > 56) {
+                        reset();
+                        return; // corrupted
+                    }
+                    b = bytes[pos++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                begin += delta;
+                addLineBegin(begin);
+            }
+            if (numOfLines != savedNumOfLines || begin > savedIndexedSize) {
+                reset();
+                return;
+            }
+            indexedSize = savedIndexedSize;
+            tailCrc = savedTailCrc;
+            savedDeltasLength = deltasLength;
+        } catch (IOException e) {
+            reset(); // as if there were no sidecar
+        }
+    }
+
+    /**
+     * Write the deltas not saved yet, then the header.
+     */
+    private void save() throws IOException {
+        try (FileChannel out = FileChannel.open(sidecar.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (out.size() < HEADER_SIZE + savedDeltasLength) {
+                savedDeltasLength = 0;
+            }
+            ByteBuffer body = ByteBuffer.wrap(deltas, savedDeltasLength, deltasLength - savedDeltasLength);
+            while (body.hasRemaining()) {
+                out.write(body, HEADER_SIZE + body.position());
+            }
+            out.truncate(HEADER_SIZE + deltasLength);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(indexedSize).putLong(numOfLines).putLong(tailCrc).flip();
+            while (header.hasRemaining()) {
+                out.write(header, header.position());
+            }
+            savedDeltasLength = deltasLength;
+        }
+    }
+
+    /**
+     * Find the line breaks in bytes [from, to) of the file, in parallel chunks if there are many bytes.
+     */
+    private void scan(long from, long to) throws IOException {
+        if (indexedSize > 0 && lastLineBegin == indexedSize && readByte(indexedSize - 1) == CR
+                && readByte(indexedSize) == LF) {
+            // the CR ending the indexed bytes turns out to be the begin of a CRLF
+            removeLastLineBegin();
+        }
+        int numOfChunks = (int) Math.min(parallelism, (to - from) / (PARALLEL_THRESHOLD / 4) + 1);
+        if (numOfChunks <= 1 || to - from < PARALLEL_THRESHOLD) {
+            addLineBegins(scanChunk(from, to, to));
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(numOfChunks);
+        try {
+            List<Future<ChunkLineBegins>> futures = new ArrayList<>();
+            for (int c = 0; c < numOfChunks; c++) {
+                long chunkBegin = from + (to - from) * c / numOfChunks;
+                long chunkEnd = from + (to - from) * (c + 1) / numOfChunks;
+                futures.add(executor.submit(() -> scanChunk(chunkBegin, chunkEnd, to)));
+            }
+            for (Future<ChunkLineBegins> future : futures) {
+                addLineBegins(await(future));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The line begins after the line breaks in bytes [begin, end),
+     * a CR is a line break unless the next byte (maybe after end, but before size) is a LF.
+     */
+    private ChunkLineBegins scanChunk(long begin, long end, long size) throws IOException {
+        ChunkLineBegins lineBegins = new ChunkLineBegins(begin);
+        ByteBuffer buf = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        for (long bufBegin = begin; bufBegin < end;) {
+            // read 1 more byte (unless at the end of the file) to know what follows a CR
+            int length = (int) Math.min(READ_BUFFER_SIZE - 1, end - bufBegin);
+            buf.clear().limit((bufBegin + length < size) ? length + 1 : length);
+            readFully(channel, buf, bufBegin);
+            for (int i = 0; i < length; i++) {
+                byte b = buf.get(i);
+                if (b == LF || (b == CR && (i + 1 == buf.limit() || buf.get(i + 1) != LF))) {
+                    lineBegins.add(bufBegin + i + 1);
+                }
+            }
+            bufBegin += length;
+        }
+        return lineBegins;
+    }
+
+    private void addLineBegin(long begin) {
+        ensureDeltasCapacity(10);
+        lastDeltaPos = deltasLength;
+        deltasLength = writeVarint(deltas, deltasLength, begin - lastLineBegin);
+        if (numOfLines % CHECKPOINT_INTERVAL == 0) {
+            addCheckpoint(begin, deltasLength);
+        }
+        numOfLines++;
+        lastLineBegin = begin;
+    }
+
+    /**
+     * Add the line begins of a chunk: only the first delta (from the chunk begin) is encoded again,
+     * the others are copied as they are.
+     */
+    private void addLineBegins(ChunkLineBegins chunk) {
+        if (chunk.length == 0) {
+            return;
+        }
+        long begin = chunk.begin + readVarint(chunk.deltas, 0);
+        addLineBegin(begin);
+        int from = nextVarint(chunk.deltas, 0);
+        int length = chunk.length - from;
+        ensureDeltasCapacity(length);
+        System.arraycopy(chunk.deltas, from, deltas, deltasLength, length);
+        // walk the copied deltas for the checkpoints
+        int end = deltasLength + length;
+        for (int pos = deltasLength; pos < end;) {
+            begin += readVarint(deltas, pos);
+            lastDeltaPos = pos;
+            pos = nextVarint(deltas, pos);
+            if (numOfLines % CHECKPOINT_INTERVAL == 0) {
+                addCheckpoint(begin, pos);
+            }
+            numOfLines++;
+        }
+        deltasLength = end;
+        lastLineBegin = begin;
+    }
+
+    private void addCheckpoint(long begin, int pos) {
+        int checkpoint = (int) (numOfLines / CHECKPOINT_INTERVAL);
+        if (checkpoint == checkpointBegins.length) {
+            checkpointBegins = Arrays.copyOf(checkpointBegins, checkpoint * 2);
+            checkpointPositions = Arrays.copyOf(checkpointPositions, checkpoint * 2);
+        }
+        checkpointBegins[checkpoint] = begin;
+        checkpointPositions[checkpoint] = pos;
+    }
+
+    private void ensureDeltasCapacity(int more) {
+        if (deltasLength + more > deltas.length) {
+            deltas = Arrays.copyOf(deltas, Math.max(deltas.length * 2, deltasLength + more));
+        }
+    }
+
+    /**
+     * Only the last line begin can be removed, only once after adding it.
+     */
+    private void removeLastLineBegin() {
+        deltasLength = lastDeltaPos;
+        savedDeltasLength = Math.min(savedDeltasLength, deltasLength);
+        numOfLines--;
+        lastLineBegin = (numOfLines == 1) ? 0 : lineBegin(numOfLines - 1);
+    }
+
+    private long lineBegin(long n) {
+        int checkpoint = (int) (n / CHECKPOINT_INTERVAL);
+        long begin = checkpointBegins[checkpoint];
+        int pos = checkpointPositions[checkpoint];
+        for (long i = (long) checkpoint * CHECKPOINT_INTERVAL; i < n; i++) {
+            begin += readVarint(deltas, pos);
+            pos = nextVarint(deltas, pos);
+        }
+        return begin;
+    }
+
+    /**
+     * Returns the position after the varint.
+     */
+    private static int writeVarint(byte[] bytes, int pos, long value) {
+        while (value >= 0x80) {
+            bytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static long readVarint(byte[] bytes, int pos) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static int nextVarint(byte[] bytes, int pos) {
+        while (bytes[pos++] < 0) {
+            // continuation bytes
+        }
+        return pos;
+    }
+
+    /**
+     * Decode bytes [begin, end) without the line break at the end.
+     */
+    private String decodeLine(byte[] bytes, int begin, int end) {
+        if (end > begin && bytes[end - 1] == LF) {
+            end--;
+        }
+        if (end > begin && bytes[end - 1] == CR) {
+            end--;
+        }
+        return new String(bytes, begin, end - begin, charset);
+    }
+
+    private void checkLineNumber(long n) {
+        if (n < 0 || n >= numOfLines) {
+            throw new IndexOutOfBoundsException("line " + n + ", lines " + numOfLines);
+        }
+    }
+
+    /**
+     * CRC of the last (up to) CRC_LENGTH bytes before the size.
+     */
+    private long tailCrc(long size) throws IOException {
+        int length = (int) Math.min(CRC_LENGTH, size);
+        CRC32 crc = new CRC32();
+        crc.update(readFully(size - length, length));
+        return crc.getValue();
+    }
+
+    private byte readByte(long position) throws IOException {
+        return readFully(position, 1)[0];
+    }
+
+    private byte[] readFully(long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        readFully(channel, buf, position);
+        return buf.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        int start = buf.position();
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position + buf.position() - start);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file at " + (position + buf.position() - start));
+            }
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * The line begins found in a chunk, as varint deltas, the first one from the chunk begin.
+     * (1 or 2 bytes per line, instead of 8 for a long[])
+     */
+    private static final class ChunkLineBegins {
+
+        private final long begin;
+        private byte[] deltas = new byte[256];
+        private int length = 0;
+        private long lastLineBegin;
+
+        ChunkLineBegins(long begin) {
+            this.begin = begin;
+            this.lastLineBegin = begin;
+        }
+
+        void add(long lineBegin) {
+            if (length + 10 > deltas.length) {
+                deltas = Arrays.copyOf(deltas, deltas.length * 2);
+            }
+            length = writeVarint(deltas, length, lineBegin - lastLineBegin);
+            lastLineBegin = lineBegin;
+        }
+    }
+
+}
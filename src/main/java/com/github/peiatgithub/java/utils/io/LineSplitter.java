@@ -0,0 +1,276 @@
+package com.github.peiatgithub.java.utils.io;
+
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <pre>
+ * Counts the lines of, and splits, (multi-GB) files for parallel processing.
+ *
+ * countLines() memory-maps the file in segments and counts the line breaks of the segments
+ * in parallel. split() cuts the file into line-aligned byte ranges (chunks), each beginning
+ * at a line begin and ending after a line break (or at the end of the file), so that worker
+ * threads can process the chunks independently.
+ *
+ * Line breaks are LF and CR (see Utils.isLineFeed() and Utils.isCarriageReturn()), a CRLF counts as one
+ * and is never split. countLines() counts every line ended by a line break, plus the text after the
+ * last line break if it is not empty, so a file ending with a line break has no extra empty line,
+ * and an empty file has no line ("a\nb" and "a\nb\n" both have 2 lines, "\n" has 1).
+ * The charset of the file must encode CR and LF the same way as ASCII does, e.g. UTF-8, ISO-8859-1.
+ *
+ * Example:
+ *   long numOfLines = LineSplitter.countLines(file);
+ *   for (LineSplitter.Chunk chunk : LineSplitter.split(file, numOfWorkers)) {
+ *       executor.submit(() -> process(file, chunk.getBegin(), chunk.getEnd()));
+ *   }
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class LineSplitter {
+
+    /** Files smaller than this are counted in the calling thread */
+    public static final long PARALLEL_THRESHOLD = 4L * 1024 * 1024;
+
+    /** Max bytes mapped at a time */
+    private static final long MAX_SEGMENT_SIZE = 256L * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private LineSplitter() {
+        throw new RuntimeException();
+    }
+
+    /**
+     * Same as countLines(file, number of processors).
+     */
+    public static long countLines(File file) throws IOException {
+        return countLines(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * <pre>
+     * Exact number of lines of the file, i.e. the number of line breaks,
+     * + 1 if the file does not end with a line break (0 for an empty file).
+     * </pre>
+     * @param parallelism number of threads counting the segments of a big file.
+     */
+    public static long countLines(File file, int parallelism) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < PARALLEL_THRESHOLD || parallelism == 1) {
+                long numOfBreaks = 0;
+                for (long begin = 0; begin < size; begin += MAX_SEGMENT_SIZE) {
+                    numOfBreaks += countLineBreaks(channel, begin, Math.min(begin + MAX_SEGMENT_SIZE, size), size);
+                }
+                return numOfBreaks + unterminatedLines(channel, size);
+            }
+            long numOfSegments = Math.max(parallelism, (size + MAX_SEGMENT_SIZE - 1) / MAX_SEGMENT_SIZE);
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                List<Future<Long>> futures = new ArrayList<>();
+                for (long s = 0; s < numOfSegments; s++) {
+                    long begin = size * s / numOfSegments;
+                    long end = size * (s + 1) / numOfSegments;
+                    futures.add(executor.submit(() -> countLineBreaks(channel, begin, end, size)));
+                }
+                long numOfBreaks = 0;
+                for (Future<Long> future : futures) {
+                    numOfBreaks += await(future);
+                }
+                return numOfBreaks + unterminatedLines(channel, size);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * <pre>
+     * Split the file into (at most) numOfChunks line-aligned chunks of about the same size.
+     * There may be fewer chunks if the file has few lines (no chunk is empty),
+     * and there is no chunk for an empty file.
+     * </pre>
+     */
+    public static List<Chunk> split(File file, int numOfChunks) throws IOException {
+        if (numOfChunks < 1) {
+            throw new IllegalArgumentException("Number of chunks must be at least 1.");
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            return split(channel, Math.max(1, (size + numOfChunks - 1) / numOfChunks));
+        }
+    }
+
+    /**
+     * <pre>
+     * Split the file into line-aligned chunks of chunkSize bytes, each extended to the end of its last line.
+     * (So a chunk can be a lot longer than chunkSize if it ends with a long line)
+     * </pre>
+     */
+    public static List<Chunk> split(FileChannel channel, long chunkSize) throws IOException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1.");
+        }
+        long size = channel.size();
+        List<Chunk> chunks = new ArrayList<>();
+        long begin = 0;
+        while (begin < size) {
+            long tentativeEnd = begin + chunkSize;
+            long end = (tentativeEnd >= size) ? size : nextLineBegin(channel, tentativeEnd, size);
+            chunks.add(new Chunk(begin, end));
+            begin = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * <pre>
+     * The begin of the first line at or after the position, i.e. the position itself
+     * if a line break ends right before it, otherwise the end of the next line break,
+     * or the size if there is none.
+     * </pre>
+     */
+    public static long nextLineBegin(FileChannel channel, long position, long size) throws IOException {
+        if (position <= 0) {
+            return 0;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        long bufBegin = position - 1;
+        boolean afterCr = false;
+        while (bufBegin < size) {
+            buf.clear();
+            int n = channel.read(buf, bufBegin);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                char c = (char) buf.get(i);
+                if (afterCr) {
+                    return isLineFeed(c) ? bufBegin + i + 1 : bufBegin + i;
+                } else if (isLineFeed(c)) {
+                    return bufBegin + i + 1;
+                } else if (isCarriageReturn(c)) {
+                    afterCr = true;
+                }
+            }
+            bufBegin += n;
+        }
+        return size;
+    }
+
+    /*
+     *
+     */
+
+    /**
+     * 1 if the file has a last line which is not ended by a line break, otherwise 0.
+     */
+    private static long unterminatedLines(FileChannel channel, long size) throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(1);
+        if (channel.read(buf, size - 1) < 1) {
+            return 0;
+        }
+        char c = (char) buf.get(0);
+        return (isLineFeed(c) || isCarriageReturn(c)) ? 0 : 1;
+    }
+
+    /**
+     * Line breaks in bytes [begin, end): every LF, and every CR which is not followed
+     * by a LF (the byte after end is mapped too, for a CR at the end).
+     */
+    private static long countLineBreaks(FileChannel channel, long begin, long end, long size) throws IOException {
+        if (begin >= end) {
+            return 0;
+        }
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, begin, Math.min(end + 1, size) - begin);
+        int length = (int) (end - begin);
+        int limit = buf.limit();
+        long numOfBreaks = 0;
+        for (int i = 0; i < length; i++) {
+            char c = (char) buf.get(i);
+            if (isLineFeed(c) || (isCarriageReturn(c) && (i + 1 == limit || !isLineFeed((char) buf.get(i + 1))))) {
+                numOfBreaks++;
+            }
+        }
+        return numOfBreaks;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * A line-aligned byte range [begin, end) of a file.
+     */
+    public static final class Chunk {
+
+        private final long begin;
+        private final long end;
+
+        public Chunk(long begin, long end) {
+            this.begin = begin;
+            this.end = end;
+        }
+
+        public long getBegin() {
+            return begin;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public long length() {
+            return end - begin;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Chunk)) {
+                return false;
+            }
+            Chunk other = (Chunk) o;
+            return begin == other.begin && end == other.end;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(begin) * 31 + Long.hashCode(end);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + begin + ", " + end + ")";
+        }
+    }
+
+}
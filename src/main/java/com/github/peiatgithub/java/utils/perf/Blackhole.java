@@ -0,0 +1,59 @@
+package com.github.peiatgithub.java.utils.perf;
+
+/**
+ * <pre>
+ * A sink for the results of benchmarked code, so that the JIT compiler cannot
+ * eliminate the code computing them as dead code.
+ *
+ * Each consume() compares the value with volatile fields, which the compiler has to read
+ * and cannot predict, so the value must really be computed. It costs about a nanosecond.
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class Blackhole {
+
+    // Never both equal to the same value, but the compiler cannot know that
+    private volatile int int1 = 1;
+    private volatile int int2 = 2;
+    private volatile long long1 = 1;
+    private volatile long long2 = 2;
+    private volatile double double1 = 1;
+    private volatile double double2 = 2;
+    private volatile boolean bool1 = true;
+    private volatile boolean bool2 = false;
+    // Never equal to any consumed object
+    private volatile Object obj = new Object();
+
+    public void consume(int value) {
+        if (value == int1 & value == int2) {
+            throw new IllegalStateException("Cannot happen");
+        }
+    }
+
+    public void consume(long value) {
+        if (value == long1 & value == long2) {
+            throw new IllegalStateException("Cannot happen");
+        }
+    }
+
+    public void consume(double value) {
+        if (value == double1 & value == double2) {
+            throw new IllegalStateException("Cannot happen");
+        }
+    }
+
+    public void consume(boolean value) {
+        if (value == bool1 & value == bool2) {
+            throw new IllegalStateException("Cannot happen");
+        }
+    }
+
+    public void consume(Object value) {
+        if (value == obj) {
+            throw new IllegalStateException("Cannot happen");
+        }
+    }
+
+}
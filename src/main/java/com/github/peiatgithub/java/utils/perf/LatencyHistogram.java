@@ -0,0 +1,411 @@
+package com.github.peiatgithub.java.utils.perf;
+
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <pre>
+ * A high dynamic range histogram of latencies (in nanoseconds, e.g. from NanoStopWatch.getNanos()),
+ * recorded concurrently by many threads.
+ *
+ * The buckets are log-linear (as in HdrHistogram): values are grouped by their power of 2,
+ * and each power of 2 is divided into linear sub-buckets, so that every value is kept with the
+ * configured number of significant decimal digits, from 1 ns up to the highest trackable value.
+ * (e.g. with 3 digits, 1234567 ns is counted as between 1233920 and 1234943 ns)
+ * Values above the highest trackable value are counted as the highest trackable value.
+ *
+ * Recording is wait-free: the counts are striped by thread (one array of counts per stripe),
+ * and record() is one atomic increment in the stripe of the current thread, a few nanoseconds.
+ * Queries sum the stripes, so they cost more, and see the recordings done before them
+ * (a recording at the same time may or may not be seen).
+ *
+ * snapshotAndReset() moves the counts to a snapshot, for interval reporting (no recording is lost or counted twice).
+ * merge() adds the counts of another histogram. toBytes() and fromBytes() give a compact binary form
+ * (run-length and variable-length encoded counts).
+ *
+ * Example:
+ *   LatencyHistogram histogram = LatencyHistogram.create(TimeUnit.MINUTES.toNanos(1), 3);
+ *   // in each request thread
+ *   long begin = System.nanoTime();
+ *   handle(request);
+ *   histogram.recordSince(begin);
+ *   // in a reporting thread, every 10 seconds
+ *   printlnWithThreadName(histogram.snapshotAndReset());
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class LatencyHistogram {
+
+    public static final int MAX_SIGNIFICANT_DIGITS = 5;
+
+    private static final int MAGIC = 0x4C484731; // "LHG1"
+    private static final int MAX_STRIPES = 64;
+
+    private final long highestTrackableValue;
+    private final int significantDigits;
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final long subBucketMask;
+    private final int countsLength;
+    private final int stripeMask;
+    /** The counts of stripe s are at [s * countsLength, (s + 1) * countsLength) */
+    private final AtomicLongArray counts;
+
+    private LatencyHistogram(long highestTrackableValue, int significantDigits, int stripes) {
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+        // the sub-buckets of a power of 2 must hold 2 * 10^digits values, to keep the digits
+        long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+        int subBucketCountMagnitude = 64 - Long.numberOfLeadingZeros(largestValueWithSingleUnitResolution - 1);
+        this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        int subBucketCount = 1 << subBucketCountMagnitude;
+        this.subBucketHalfCount = subBucketCount / 2;
+        this.subBucketMask = subBucketCount - 1;
+        int numOfBuckets = 1;
+        long smallestUntrackableValue = subBucketCount;
+        while (smallestUntrackableValue <= highestTrackableValue) {
+            if (smallestUntrackableValue > Long.MAX_VALUE / 2) {
+                numOfBuckets++;
+                break;
+            }
+            smallestUntrackableValue <<= 1;
+            numOfBuckets++;
+        }
+        this.countsLength = (numOfBuckets + 1) * subBucketHalfCount;
+        this.stripeMask = stripes - 1;
+        this.counts = new AtomicLongArray(stripes * countsLength);
+    }
+
+    /**
+     * Same as create(highestTrackableValue, significantDigits, stripes), with one stripe per processor
+     * (rounded up to a power of 2, at most 16).
+     */
+    public static LatencyHistogram create(long highestTrackableValue, int significantDigits) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return create(highestTrackableValue, significantDigits, Math.min(16, processors));
+    }
+
+    /**
+     * @param highestTrackableValue at least 2.
+     * @param significantDigits 0 to 5. Memory grows 10 times for each digit (about 200KB per stripe
+     *        for 3 digits and 1 minute in nanoseconds).
+     * @param stripes number of count arrays (rounded up to a power of 2, at most 64). More stripes
+     *        mean less contention between the recording threads, but more memory.
+     */
+    public static LatencyHistogram create(long highestTrackableValue, int significantDigits, int stripes) {
+        if (highestTrackableValue < 2) {
+            throw new IllegalArgumentException("Highest trackable value must be at least 2: " + highestTrackableValue);
+        }
+        if (significantDigits < 0 || significantDigits > MAX_SIGNIFICANT_DIGITS) {
+            throw new IllegalArgumentException("Significant digits must be in [0, 5]: " + significantDigits);
+        }
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Stripes must be at least 1.");
+        }
+        int powerOf2Stripes = Integer.highestOneBit(Math.min(MAX_STRIPES, stripes));
+        if (powerOf2Stripes < stripes && powerOf2Stripes < MAX_STRIPES) {
+            powerOf2Stripes <<= 1;
+        }
+        return new LatencyHistogram(highestTrackableValue, significantDigits, powerOf2Stripes);
+    }
+
+    /**
+     * Record a value (negative values are counted as 0).
+     */
+    public void record(long value) {
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        counts.incrementAndGet(stripe * countsLength + indexOf(value));
+    }
+
+    /**
+     * Record the nanoseconds elapsed since the System.nanoTime() value.
+     */
+    public void recordSince(long beginNanoTime) {
+        record(System.nanoTime() - beginNanoTime);
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    public int getSignificantDigits() {
+        return significantDigits;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * The value at the percentile (0 to 100), i.e. the highest value equivalent (within the precision)
+     * to the value which the percentile of the recorded values are at or below. 0 if nothing is recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long[] merged = mergedCounts();
+        long total = sum(merged);
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int idx = 0; idx < countsLength; idx++) {
+            seen += merged[idx];
+            if (seen >= rank) {
+                return highestEquivalentValue(idx);
+            }
+        }
+        return highestTrackableValue;
+    }
+
+    /**
+     * The lowest recorded value (within the precision), 0 if nothing is recorded.
+     */
+    public long getMin() {
+        long[] merged = mergedCounts();
+        for (int idx = 0; idx < countsLength; idx++) {
+            if (merged[idx] > 0) {
+                return valueOf(idx);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The highest recorded value (within the precision), 0 if nothing is recorded.
+     */
+    public long getMax() {
+        long[] merged = mergedCounts();
+        for (int idx = countsLength - 1; idx >= 0; idx--) {
+            if (merged[idx] > 0) {
+                return highestEquivalentValue(idx);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The mean of the recorded values (each counted as the middle of its sub-bucket), 0 if nothing is recorded.
+     */
+    public double getMean() {
+        long[] merged = mergedCounts();
+        long total = 0;
+        double sum = 0;
+        for (int idx = 0; idx < countsLength; idx++) {
+            if (merged[idx] > 0) {
+                total += merged[idx];
+                sum += merged[idx] * ((valueOf(idx) + highestEquivalentValue(idx)) / 2.0);
+            }
+        }
+        return total == 0 ? 0 : sum / total;
+    }
+
+    /**
+     * A copy of the counts (with one stripe).
+     */
+    public LatencyHistogram snapshot() {
+        LatencyHistogram snapshot = new LatencyHistogram(highestTrackableValue, significantDigits, 1);
+        long[] merged = mergedCounts();
+        for (int idx = 0; idx < countsLength; idx++) {
+            snapshot.counts.set(idx, merged[idx]);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Move the counts to a snapshot (with one stripe), and reset the counts of this histogram to 0.
+     * Each recording is either in this snapshot or in the next one.
+     */
+    public LatencyHistogram snapshotAndReset() {
+        LatencyHistogram snapshot = new LatencyHistogram(highestTrackableValue, significantDigits, 1);
+        for (int i = 0; i < counts.length(); i++) {
+            if (counts.get(i) != 0) {
+                long count = counts.getAndSet(i, 0);
+                snapshot.counts.addAndGet(i % countsLength, count);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Add the counts of the other histogram, which must have the same highest trackable value and digits.
+     */
+    public void merge(LatencyHistogram other) {
+        checkSameBuckets(other);
+        long[] merged = other.mergedCounts();
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        for (int idx = 0; idx < countsLength; idx++) {
+            if (merged[idx] != 0) {
+                counts.addAndGet(stripe * countsLength + idx, merged[idx]);
+            }
+        }
+    }
+
+    /**
+     * <pre>
+     * The compact binary form of the counts: a header (magic, highest trackable value, digits)
+     * then the counts as ZigZag LEB128 variable-length longs, a run of N empty buckets written as -N.
+     * </pre>
+     */
+    public byte[] toBytes() {
+        long[] merged = mergedCounts();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(MAGIC).putLong(highestTrackableValue).put((byte) significantDigits);
+        out.write(header.array(), 0, header.position());
+        int idx = 0;
+        while (idx < countsLength) {
+            if (merged[idx] == 0) {
+                int runEnd = idx;
+                while (runEnd < countsLength && merged[runEnd] == 0) {
+                    runEnd++;
+                }
+                writeVarLong(out, -(runEnd - idx));
+                idx = runEnd;
+            } else {
+                writeVarLong(out, merged[idx++]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Read a histogram from toBytes(), with the default number of stripes.
+     * @throws IllegalArgumentException if the bytes are not from toBytes(), or are truncated.
+     */
+    public static LatencyHistogram fromBytes(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        if (bytes.length < 13 || buf.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a LatencyHistogram.");
+        }
+        LatencyHistogram histogram = create(buf.getLong(), buf.get());
+        int idx = 0;
+        while (buf.hasRemaining()) {
+            long value = readVarLong(buf);
+            if (value < 0) {
+                if (-value > histogram.countsLength - idx) {
+                    throw new IllegalArgumentException("Corrupted LatencyHistogram: too many counts.");
+                }
+                idx += (int) -value;
+            } else {
+                if (idx >= histogram.countsLength) {
+                    throw new IllegalArgumentException("Corrupted LatencyHistogram: too many counts.");
+                }
+                histogram.counts.set(idx++, value);
+            }
+        }
+        // toBytes() writes every bucket, so fewer means the bytes were cut at a varint boundary
+        if (idx != histogram.countsLength) {
+            throw new IllegalArgumentException("Corrupted LatencyHistogram: truncated.");
+        }
+        return histogram;
+    }
+
+    /**
+     * <pre>
+     * e.g.
+     * 12000 values, mean 152.3 us, p50 120.8, p90 250.1, p99 870.4, p99.9 2301.9, max 4502.3
+     * </pre>
+     */
+    @Override
+    public String toString() {
+        return str("{} values, mean {} us, p50 {}, p90 {}, p99 {}, p99.9 {}, max {}", getCount(),
+                micros(getMean()), micros(getPercentile(50)), micros(getPercentile(90)), micros(getPercentile(99)),
+                micros(getPercentile(99.9)), micros(getMax()));
+    }
+
+    /*
+     *
+     */
+
+    private int indexOf(long value) {
+        long v = value < 0 ? 0 : Math.min(value, highestTrackableValue);
+        int bucketIndex = 63 - Long.numberOfLeadingZeros(v | subBucketMask) - subBucketHalfCountMagnitude;
+        int subBucketIndex = (int) (v >>> bucketIndex);
+        return (bucketIndex << subBucketHalfCountMagnitude) + subBucketIndex;
+    }
+
+    /**
+     * The lowest value counted at the index.
+     */
+    private long valueOf(int idx) {
+        int bucketIndex = (idx >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (idx & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return (long) subBucketIndex << bucketIndex;
+    }
+
+    /**
+     * The highest value counted at the index.
+     */
+    private long highestEquivalentValue(int idx) {
+        int bucketIndex = Math.max(0, (idx >> subBucketHalfCountMagnitude) - 1);
+        return Math.min(highestTrackableValue, valueOf(idx) + (1L << bucketIndex) - 1);
+    }
+
+    private long[] mergedCounts() {
+        long[] merged = new long[countsLength];
+        for (int i = 0; i < counts.length(); i++) {
+            merged[i % countsLength] += counts.get(i);
+        }
+        return merged;
+    }
+
+    private void checkSameBuckets(LatencyHistogram other) {
+        if (other.highestTrackableValue != highestTrackableValue || other.significantDigits != significantDigits) {
+            throw new IllegalArgumentException("Cannot merge histograms of different highest trackable values or digits.");
+        }
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static String micros(double nanos) {
+        return String.format("%.1f", nanos / TimeUnit.MICROSECONDS.toNanos(1));
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.write((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.write((int) zigZag);
+    }
+
+    private static long readVarLong(ByteBuffer buf) {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buf.hasRemaining()) {
+                throw new IllegalArgumentException("Corrupted LatencyHistogram: truncated varint.");
+            }
+            byte b = buf.get();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Corrupted LatencyHistogram: malformed varint.");
+    }
+
+}
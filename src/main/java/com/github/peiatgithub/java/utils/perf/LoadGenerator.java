@@ -0,0 +1,315 @@
+package com.github.peiatgithub.java.utils.perf;
+
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import com.github.peiatgithub.java.utils.concurrent.ManagedThreadFactory;
+import com.github.peiatgithub.java.utils.concurrent.PreciseSleeper;
+import com.github.peiatgithub.java.utils.function.NonArgFunction;
+
+/**
+ * <pre>
+ * A load generator which runs operations at a fixed rate, on N worker threads.
+ *
+ * Operation i is scheduled at (start + i / rate), whether the previous operations are done or not.
+ * A worker takes the next operation, waits until its scheduled time (if not already late), and runs it.
+ * The response time of an operation is measured from its scheduled time, not from when it actually started,
+ * so if the target stalls, the operations queued behind the stall count the waiting time too.
+ * (Measuring from the actual start, like repeatRun() plus threadSleep() does, only gives the service time,
+ * and hides the stall: the "coordinated omission" problem)
+ *
+ * The Report gives the response time and service time distributions, the achieved rate,
+ * the number of failed operations and the backlog (operations due but not started yet).
+ *
+ * The times of all operations are kept until the end (16 bytes per operation).
+ *
+ * Example:
+ *   LoadGenerator.Report report = LoadGenerator.rate(2000).duration(30, TimeUnit.SECONDS).threads(8)
+ *           .run(i -> client.send(requests[i % requests.length]));
+ *   printlnWithThreadName(report);
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class LoadGenerator {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double opsPerSecond;
+    private long numOfOps = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private PreciseSleeper sleeper = PreciseSleeper.of(PreciseSleeper.Policy.PARK);
+
+    private LoadGenerator(double opsPerSecond) {
+        this.opsPerSecond = opsPerSecond;
+    }
+
+    /**
+     * @param opsPerSecond the target rate, at most 1 billion.
+     */
+    public static LoadGenerator rate(double opsPerSecond) {
+        if (!(opsPerSecond > 0 && opsPerSecond <= TimeUnit.SECONDS.toNanos(1))) {
+            throw new IllegalArgumentException("Rate must be in (0, 1e9] operations per second: " + opsPerSecond);
+        }
+        return new LoadGenerator(opsPerSecond);
+    }
+
+    /**
+     * Number of operations to run, defaults to 1.
+     */
+    public LoadGenerator operations(long numOfOps) {
+        if (numOfOps < 1 || numOfOps > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Number of operations must be in [1, Integer.MAX_VALUE - 8]: " + numOfOps);
+        }
+        this.numOfOps = numOfOps;
+        return this;
+    }
+
+    /**
+     * Run (rate * duration) operations.
+     */
+    public LoadGenerator duration(long duration, TimeUnit unit) {
+        return operations(Math.max(1, (long) (opsPerSecond * unit.toNanos(duration) / NANOS_PER_SECOND)));
+    }
+
+    /**
+     * Number of worker threads, i.e. max concurrent operations, defaults to the number of processors.
+     */
+    public LoadGenerator threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be at least 1.");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * How the workers wait for the scheduled times, defaults to a PreciseSleeper with the PARK policy.
+     * (PARK_THEN_SPIN is more precise at high rates, but uses more CPU)
+     */
+    public LoadGenerator sleeper(PreciseSleeper sleeper) {
+        if (sleeper == null) {
+            throw new IllegalArgumentException("Sleeper must not be null.");
+        }
+        this.sleeper = sleeper;
+        return this;
+    }
+
+    public Report run(NonArgFunction operation) throws InterruptedException {
+        return run(i -> operation.doSth());
+    }
+
+    /**
+     * Run the operations (taking the operation index), and wait for all of them to finish.
+     * A failed operation (which threw) is counted, and its times are recorded as for the others.
+     */
+    public Report run(IntConsumer operation) throws InterruptedException {
+        Schedule schedule = new Schedule(operation);
+        ExecutorService executor = ManagedThreadFactory.named("load-generator").daemon(true).newExecutor(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int w = 0; w < threads; w++) {
+                workers.add(executor.submit(schedule::work));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return schedule.toReport();
+    }
+
+    /*
+     *
+     */
+
+    /**
+     * The state of one run(), shared by the workers.
+     */
+    private class Schedule {
+
+        private final IntConsumer operation;
+        private final int n = (int) numOfOps;
+        private final long[] responseNanos = new long[n];
+        private final long[] serviceNanos = new long[n];
+        private final AtomicInteger nextOp = new AtomicInteger();
+        private final AtomicInteger numOfFailures = new AtomicInteger();
+        private final AtomicLong maxBacklog = new AtomicLong();
+        private final AtomicLong lastEnd = new AtomicLong();
+        private final long start;
+
+        Schedule(IntConsumer operation) {
+            this.operation = operation;
+            this.start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1); // gives the workers time to start
+        }
+
+        void work() {
+            int i;
+            while ((i = nextOp.getAndIncrement()) < n) {
+                // not i * a rounded period, which drifts from the rate over many operations
+                long intended = start + (long) (i * NANOS_PER_SECOND / opsPerSecond);
+                try {
+                    sleeper.sleepUntil(intended);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long now = System.nanoTime();
+                // operations due by now (but at most n), minus the ones already taken (i)
+                long due = Math.min(n, (long) ((now - start) * opsPerSecond / NANOS_PER_SECOND) + 1);
+                long backlog = due - i - 1;
+                if (backlog > maxBacklog.get()) {
+                    maxBacklog.accumulateAndGet(backlog, Math::max);
+                }
+                try {
+                    operation.accept(i);
+                } catch (RuntimeException e) {
+                    numOfFailures.incrementAndGet();
+                }
+                long end = System.nanoTime();
+                responseNanos[i] = end - intended;
+                serviceNanos[i] = end - now;
+                lastEnd.accumulateAndGet(end, Math::max);
+            }
+        }
+
+        Report toReport() {
+            return new Report(opsPerSecond, responseNanos, serviceNanos, numOfFailures.get(), maxBacklog.get(),
+                    lastEnd.get() - start);
+        }
+    }
+
+    /**
+     * The measurements of a LoadGenerator run, times are in nanoseconds.
+     */
+    public static final class Report {
+
+        private final double targetRate;
+        private final long[] sortedResponseNanos;
+        private final long[] sortedServiceNanos;
+        private final int numOfFailures;
+        private final long maxBacklog;
+        private final long elapsedNanos;
+
+        Report(double targetRate, long[] responseNanos, long[] serviceNanos, int numOfFailures, long maxBacklog,
+                long elapsedNanos) {
+            this.targetRate = targetRate;
+            this.sortedResponseNanos = responseNanos;
+            this.sortedServiceNanos = serviceNanos;
+            Arrays.sort(sortedResponseNanos);
+            Arrays.sort(sortedServiceNanos);
+            this.numOfFailures = numOfFailures;
+            this.maxBacklog = maxBacklog;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getNumOfOps() {
+            return sortedResponseNanos.length;
+        }
+
+        public int getNumOfFailures() {
+            return numOfFailures;
+        }
+
+        public double getTargetRate() {
+            return targetRate;
+        }
+
+        /**
+         * Operations per second, from the first scheduled time to the end of the last operation.
+         */
+        public double getAchievedRate() {
+            return (double) getNumOfOps() * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsedNanos);
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Max number of operations which were due, but not started yet because all the workers were busy.
+         */
+        public long getMaxBacklog() {
+            return maxBacklog;
+        }
+
+        /**
+         * Response time (from the scheduled time to the end of the operation) at the percentile (0 to 100).
+         */
+        public long getResponseTime(double percentile) {
+            return percentile(sortedResponseNanos, percentile);
+        }
+
+        /**
+         * Service time (from the actual start to the end of the operation) at the percentile (0 to 100).
+         */
+        public long getServiceTime(double percentile) {
+            return percentile(sortedServiceNanos, percentile);
+        }
+
+        public double getMeanResponseTime() {
+            return mean(sortedResponseNanos);
+        }
+
+        public double getMeanServiceTime() {
+            return mean(sortedServiceNanos);
+        }
+
+        /**
+         * <pre>
+         * e.g.
+         * 60000 ops (0 failed) at 1999.8/s (target 2000.0/s), max backlog 0
+         * response time: mean 0.41 ms, p50 0.38, p90 0.52, p99 0.97, p99.9 2.10, max 3.30
+         * service time: mean 0.40 ms, p50 0.37, p90 0.51, p99 0.95, p99.9 2.00, max 3.20
+         * </pre>
+         */
+        @Override
+        public String toString() {
+            return strln("{} ops ({} failed) at {}/s (target {}/s), max backlog {}", getNumOfOps(), numOfFailures,
+                    String.format("%.1f", getAchievedRate()), String.format("%.1f", targetRate), maxBacklog)
+                    + strln(distribution("response time", sortedResponseNanos))
+                    + distribution("service time", sortedServiceNanos);
+        }
+
+        private static String distribution(String title, long[] sorted) {
+            return str("{}: mean {} ms, p50 {}, p90 {}, p99 {}, p99.9 {}, max {}", title, millis(mean(sorted)),
+                    millis(percentile(sorted, 50)), millis(percentile(sorted, 90)), millis(percentile(sorted, 99)),
+                    millis(percentile(sorted, 99.9)), millis(percentile(sorted, 100)));
+        }
+
+        private static String millis(double nanos) {
+            return String.format("%.2f", nanos / TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        private static double mean(long[] values) {
+            double sum = 0;
+            for (long value : values) {
+                sum += value;
+            }
+            return sum / values.length;
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.github.peiatgithub.java.utils.perf;
+
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.github.peiatgithub.java.utils.LapStopWatch;
+import com.github.peiatgithub.java.utils.function.NonArgFunction;
+import com.github.peiatgithub.java.utils.text.Humanizer;
+
+/**
+ * <pre>
+ * A lightweight in-process microbenchmark, for quick performance checks (e.g. in integration tests)
+ * where JMH is too heavy.
+ *
+ * The code is run in iterations of opsPerIteration operations (with Utils.repeatRun()),
+ * each timed as a lap of a LapStopWatch: first the warmup iterations, so that the JIT compiler
+ * compiles the code, then the measured iterations. The Report gives the time per operation
+ * of each measured iteration (the samples), their mean, p50, p99 and max, and the operations per second.
+ *
+ * Results of the code should be passed to the Blackhole, otherwise the JIT compiler may find them unused,
+ * and eliminate the code computing them.
+ *
+ * It runs in the calling thread.
+ * Unlike JMH, it does not fork a JVM, so the results depend on the code run before in the same JVM.
+ *
+ * Example:
+ *   MicroBench.Report report = MicroBench.of("parseLong").warmup(5).iterations(20).opsPerIteration(100_000)
+ *           .run(bh -> bh.consume(NumberParser.parseLong("1234567")));
+ *   printlnWithThreadName(report);
+ *   // parseLong: 15.2 ns/op (p50 14.9, p99 18.0, max 18.0), 65.8 Mn ops/s, 20 x 100000 ops
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class MicroBench {
+
+    private final String name;
+    private int warmup = 5;
+    private int iterations = 10;
+    private int opsPerIteration = 1000;
+
+    private MicroBench(String name) {
+        this.name = name;
+    }
+
+    public static MicroBench of(String name) {
+        return new MicroBench(name);
+    }
+
+    /**
+     * Number of warmup (not measured) iterations, defaults to 5.
+     */
+    public MicroBench warmup(int warmup) {
+        if (warmup < 0) {
+            throw new IllegalArgumentException("Warmup iterations must not be negative.");
+        }
+        this.warmup = warmup;
+        return this;
+    }
+
+    /**
+     * Number of measured iterations, defaults to 10.
+     */
+    public MicroBench iterations(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be at least 1.");
+        }
+        this.iterations = iterations;
+        return this;
+    }
+
+    /**
+     * Number of operations (runs of the code) per iteration, defaults to 1000.
+     * Should be high enough for an iteration to take at least some microseconds.
+     */
+    public MicroBench opsPerIteration(int opsPerIteration) {
+        if (opsPerIteration < 1) {
+            throw new IllegalArgumentException("Operations per iteration must be at least 1.");
+        }
+        this.opsPerIteration = opsPerIteration;
+        return this;
+    }
+
+    public Report run(NonArgFunction code) {
+        return run(bh -> code.doSth());
+    }
+
+    public Report run(Consumer<Blackhole> code) {
+        Blackhole bh = new Blackhole();
+        NonArgFunction op = () -> code.accept(bh);
+        for (int i = 0; i < warmup; i++) {
+            repeatRun(opsPerIteration, op);
+        }
+        LapStopWatch watch = new LapStopWatch(iterations);
+        watch.start();
+        for (int i = 0; i < iterations; i++) {
+            repeatRun(opsPerIteration, op);
+            watch.lap();
+        }
+        watch.stop();
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            samples[i] = watch.getLapNanos(i);
+        }
+        return new Report(name, opsPerIteration, samples);
+    }
+
+    /*
+     *
+     */
+
+    /**
+     * The measurements of a MicroBench run, times are in nanoseconds per operation.
+     */
+    public static final class Report {
+
+        private final String name;
+        private final int opsPerIteration;
+        private final long[] iterationNanos;
+        private final double[] sortedNanosPerOp;
+
+        Report(String name, int opsPerIteration, long[] iterationNanos) {
+            this.name = name;
+            this.opsPerIteration = opsPerIteration;
+            this.iterationNanos = iterationNanos;
+            this.sortedNanosPerOp = new double[iterationNanos.length];
+            for (int i = 0; i < iterationNanos.length; i++) {
+                sortedNanosPerOp[i] = (double) iterationNanos[i] / opsPerIteration;
+            }
+            Arrays.sort(sortedNanosPerOp);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getIterations() {
+            return iterationNanos.length;
+        }
+
+        public int getOpsPerIteration() {
+            return opsPerIteration;
+        }
+
+        /**
+         * Time per operation of each measured iteration, in the order of the iterations.
+         */
+        public double[] getSamples() {
+            double[] samples = new double[iterationNanos.length];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = (double) iterationNanos[i] / opsPerIteration;
+            }
+            return samples;
+        }
+
+        public double getMean() {
+            return (double) getTotalNanos() / ((long) opsPerIteration * iterationNanos.length);
+        }
+
+        /**
+         * The sample at the percentile (0 to 100, nearest rank).
+         */
+        public double getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sortedNanosPerOp.length);
+            return sortedNanosPerOp[Math.max(0, rank - 1)];
+        }
+
+        public double getP50() {
+            return getPercentile(50);
+        }
+
+        public double getP99() {
+            return getPercentile(99);
+        }
+
+        public double getMax() {
+            return sortedNanosPerOp[sortedNanosPerOp.length - 1];
+        }
+
+        /**
+         * Operations per second over all the measured iterations.
+         */
+        public double getOpsPerSecond() {
+            long totalNanos = Math.max(1, getTotalNanos());
+            return (double) opsPerIteration * iterationNanos.length * TimeUnit.SECONDS.toNanos(1) / totalNanos;
+        }
+
+        @Override
+        public String toString() {
+            return str("{}: {} ns/op (p50 {}, p99 {}, max {}), {} ops/s, {} x {} ops", name, format(getMean()),
+                    format(getP50()), format(getP99()), format(getMax()),
+                    Humanizer.formatNumber(Math.round(getOpsPerSecond())), iterationNanos.length, opsPerIteration);
+        }
+
+        private long getTotalNanos() {
+            long total = 0;
+            for (long nanos : iterationNanos) {
+                total += nanos;
+            }
+            return total;
+        }
+
+        private static String format(double nanos) {
+            return String.format("%.1f", nanos);
+        }
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.github.peiatgithub.java.utils.text;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+/**
+ * <pre>
+ * A reusable cursor over the delimited fields of a line,
+ * with the same semantics as Utils.getSubString(str, delimiter, n1, n2).
+ *
+ * reset(line) finds all delimiter positions once, after that any field range
+ * is found in O(1), as indexes (begin(n1, n2), end(n1, n2)), as a CharSequence view
+ * of the line (subSequence(n1, n2), no chars copied), or as a String (getSubString(n1, n2)).
+ *
+ * The cursor can be reset to the next line, reusing its internal array.
+ * It is not thread safe.
+ *
+ * Example:
+ *   FieldCursor cursor = new FieldCursor(",");
+ *   for (String line : lines) {
+ *       cursor.reset(line);
+ *       CharSequence name = cursor.subSequence(0, 1);
+ *       String city = cursor.getSubString(2, 3);
+ *       long id = cursor.parseLong(-1, 0); // no sub String created, see NumberParser
+ *   }
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class FieldCursor {
+
+    private final String delimiter;
+
+    private CharSequence line = EMPTY;
+    private int[] delimiterIdxs = new int[16];
+    private int numOfDelimiters = 0;
+
+    /**
+     * @param delimiter must not be null or empty.
+     */
+    public FieldCursor(String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException(ARGUMENT_MUST_NOT_BE_NULL_OR_EMPTY);
+        }
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Index the delimiters of the line, and return this cursor.
+     * The line must not be null.
+     */
+    public FieldCursor reset(CharSequence line) {
+        this.line = line;
+        this.numOfDelimiters = 0;
+        int idx = -1;
+        while ((idx = indexOf(line, idx + 1)) != -1) {
+            if (numOfDelimiters == delimiterIdxs.length) {
+                int[] bigger = new int[delimiterIdxs.length * 2];
+                System.arraycopy(delimiterIdxs, 0, bigger, 0, numOfDelimiters);
+                delimiterIdxs = bigger;
+            }
+            delimiterIdxs[numOfDelimiters++] = idx;
+        }
+        return this;
+    }
+
+    public CharSequence getLine() {
+        return line;
+    }
+
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    public int getNumOfDelimiters() {
+        return numOfDelimiters;
+    }
+
+    /**
+     * Index of the nth delimiter in the line, n begins from 0.
+     */
+    public int delimiterIndex(int n) {
+        if (n < 0 || n >= numOfDelimiters) {
+            throw new IndexOutOfBoundsException(String.valueOf(n));
+        }
+        return delimiterIdxs[n];
+    }
+
+    /**
+     * Tells you if the range between the n1th and the n2th delimiter exists in the line.
+     * If not, getSubString(n1, n2) returns empty.
+     */
+    public boolean hasRange(int n1, int n2) {
+        return n1 < n2 && n2 >= 0 && n2 < numOfDelimiters;
+    }
+
+    /**
+     * Begin index (inclusive) in the line of the sub String between the n1th and the n2th delimiter.
+     * If the range does not exist, returns 0 and end(n1, n2) returns 0 too.
+     */
+    public int begin(int n1, int n2) {
+        if (!hasRange(n1, n2)) {
+            return 0;
+        }
+        return (n1 < 0) ? 0 : delimiterIdxs[n1] + 1;
+    }
+
+    /**
+     * End index (exclusive) in the line of the sub String between the n1th and the n2th delimiter.
+     */
+    public int end(int n1, int n2) {
+        if (!hasRange(n1, n2)) {
+            return 0;
+        }
+        return delimiterIdxs[n2];
+    }
+
+    /**
+     * The sub String between the n1th and the n2th delimiter, as a view of the line
+     * without copying chars.
+     */
+    public CharSequence subSequence(int n1, int n2) {
+        if (!hasRange(n1, n2)) {
+            return EMPTY;
+        }
+        return new Slice(line, begin(n1, n2), end(n1, n2));
+    }
+
+    /**
+     * Same as Utils.getSubString(line, delimiter, n1, n2).
+     */
+    public String getSubString(int n1, int n2) {
+        if (!hasRange(n1, n2)) {
+            return EMPTY;
+        }
+        return line.subSequence(begin(n1, n2), end(n1, n2)).toString();
+    }
+
+    /**
+     * Parse the sub String between the n1th and the n2th delimiter with NumberParser.parseLong(),
+     * throws NumberFormatException if the range does not exist (empty) or is not a number.
+     */
+    public long parseLong(int n1, int n2) {
+        return NumberParser.parseLong(line, begin(n1, n2), end(n1, n2));
+    }
+
+    /**
+     * Parse the sub String between the n1th and the n2th delimiter with NumberParser.parseDouble(),
+     * throws NumberFormatException if the range does not exist (empty) or is not a number.
+     */
+    public double parseDouble(int n1, int n2) {
+        return NumberParser.parseDouble(line, begin(n1, n2), end(n1, n2));
+    }
+
+    /*
+     *
+     */
+
+    private int indexOf(CharSequence cs, int fromIdx) {
+        if (cs instanceof String) {
+            return ((String) cs).indexOf(delimiter, fromIdx);
+        }
+        char first = delimiter.charAt(0);
+        int last = cs.length() - delimiter.length();
+        for (int i = fromIdx; i <= last; i++) {
+            if (cs.charAt(i) == first && regionMatches(cs, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(CharSequence cs, int idx) {
+        for (int j = 1; j < delimiter.length(); j++) {
+            if (cs.charAt(idx + j) != delimiter.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A read-only view of a range of a CharSequence.
+     */
+    private static final class Slice implements CharSequence {
+
+        private final CharSequence cs;
+        private final int begin;
+        private final int end;
+
+        private Slice(CharSequence cs, int begin, int end) {
+            this.cs = cs;
+            this.begin = begin;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - begin;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length()) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            return cs.charAt(begin + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length() || start > end) {
+                throw new IndexOutOfBoundsException(start + ", " + end);
+            }
+            return new Slice(cs, begin + start, begin + end);
+        }
+
+        @Override
+        public String toString() {
+            return cs.subSequence(begin, end).toString();
+        }
+    }
+
+}
@@ -0,0 +1,383 @@
+package com.github.peiatgithub.java.utils.text;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * <pre>
+ * Human readable numbers and numbers of bytes, same output as Utils.bytesToReadable()
+ * and Utils.numberToReadable(), i.e. DecimalFormat("#.#") of the default (format) locale.
+ *
+ * No formatter is created per call: the one-decimal HALF_EVEN rounding is done on the exact
+ * value of the double (like DecimalFormat does), only values beyond 10^11 in a unit,
+ * NaN, Infinity and -0.0 fall back to a per-thread DecimalFormat.
+ * All methods are thread safe.
+ *
+ * Example:
+ *   Humanizer.appendBytes(sb, 1536)             appends "1.5 KB"
+ *   Humanizer.appendNumbers(sb, series, ", ")   appends e.g. "1.2 Mn, 5.7 K, 999.0"
+ *   Humanizer.parseBytes("1.5 GB")              returns 1610612736
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class Humanizer {
+
+    private static final String GB_UNIT = " GB";
+    private static final String MB_UNIT = " MB";
+    private static final String KB_UNIT = " KB";
+    private static final String BYTES_UNIT = " Bytes";
+    private static final String BN_UNIT = " Bn";
+    private static final String MN_UNIT = " Mn";
+    private static final String K_UNIT = " K";
+
+    /** Values (in a unit) below this are rounded without DecimalFormat, 10 times it is below 2^40 */
+    private static final double MAX_FAST_PATH_VALUE = 1e11;
+    /** 2^27 + 1, for splitting a double into 2 halves (Veltkamp) */
+    private static final double SPLITTER = 134217729;
+
+    private static volatile Symbols symbols = new Symbols(Locale.getDefault(Locale.Category.FORMAT));
+
+    private Humanizer() {
+        throw new RuntimeException();
+    }
+
+    /**
+     * Same as Utils.bytesToReadable(numOfBytes).
+     */
+    public static String formatBytes(double numOfBytes) {
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendBytes(sb, numOfBytes).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Append Utils.bytesToReadable(numOfBytes) to the StringBuilder, and return the StringBuilder.
+     */
+    public static StringBuilder appendBytes(StringBuilder sb, double numOfBytes) {
+        return appendBytes(sb, numOfBytes, currentSymbols());
+    }
+
+    /**
+     * Utils.bytesToReadable() of each number of the series.
+     */
+    public static String[] formatBytes(long[] series) {
+        Symbols s = currentSymbols();
+        String[] result = new String[series.length];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < series.length; i++) {
+            sb.setLength(0);
+            result[i] = appendBytes(sb, series[i], s).toString();
+        }
+        return result;
+    }
+
+    /**
+     * Append Utils.bytesToReadable() of each number of the series, separated by the separator.
+     */
+    public static StringBuilder appendBytes(StringBuilder sb, long[] series, String separator) {
+        Symbols s = currentSymbols();
+        for (int i = 0; i < series.length; i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            appendBytes(sb, series[i], s);
+        }
+        return sb;
+    }
+
+    /**
+     * Same as Utils.numberToReadable(num).
+     */
+    public static String formatNumber(long num) {
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendNumber(sb, num).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Append Utils.numberToReadable(num) to the StringBuilder, and return the StringBuilder.
+     */
+    public static StringBuilder appendNumber(StringBuilder sb, long num) {
+        return appendNumber(sb, num, currentSymbols());
+    }
+
+    /**
+     * Utils.numberToReadable() of each number of the series.
+     */
+    public static String[] formatNumbers(long[] series) {
+        Symbols s = currentSymbols();
+        String[] result = new String[series.length];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < series.length; i++) {
+            sb.setLength(0);
+            result[i] = appendNumber(sb, series[i], s).toString();
+        }
+        return result;
+    }
+
+    /**
+     * Append Utils.numberToReadable() of each number of the series, separated by the separator.
+     */
+    public static StringBuilder appendNumbers(StringBuilder sb, long[] series, String separator) {
+        Symbols s = currentSymbols();
+        for (int i = 0; i < series.length; i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            appendNumber(sb, series[i], s);
+        }
+        return sb;
+    }
+
+    /**
+     * <pre>
+     * The number of bytes of a readable String like "1.5 GB", the inverse of Utils.bytesToReadable()
+     * (rounded to the nearest byte). The unit is one of "Bytes", "B", "KB", "MB", "GB" (case insensitive),
+     * the spaces before the unit are optional, and the decimal separator is '.' or the one of
+     * the default locale. Throws NumberFormatException if the text is not like that.
+     * </pre>
+     */
+    public static long parseBytes(CharSequence text) {
+        int numberEnd = numberEnd(text);
+        int unitBegin = skipSpaces(text, numberEnd);
+        long multiplier;
+        if (isUnit(text, unitBegin, "GB")) {
+            multiplier = GB;
+        } else if (isUnit(text, unitBegin, "MB")) {
+            multiplier = MB;
+        } else if (isUnit(text, unitBegin, "KB")) {
+            multiplier = KB;
+        } else if (isUnit(text, unitBegin, "Bytes") || isUnit(text, unitBegin, "B") || unitBegin == text.length()) {
+            multiplier = 1;
+        } else {
+            throw new NumberFormatException("For input string: \"" + text + "\", unknown unit");
+        }
+        double value = parseNumberPart(text, numberEnd);
+        if (value < 0) {
+            throw new NumberFormatException("For input string: \"" + text + "\", negative number of bytes");
+        }
+        return Math.round(value * multiplier);
+    }
+
+    /**
+     * <pre>
+     * The number of a readable String like "1.2 Mn" or "-5.7 K", the inverse of Utils.numberToReadable()
+     * (rounded to the nearest integer). The unit is one of "K", "Mn", "Bn" (case insensitive) or none,
+     * the spaces before the unit are optional, and the decimal separator is '.' or the one of
+     * the default locale. Throws NumberFormatException if the text is not like that.
+     * </pre>
+     */
+    public static long parseNumber(CharSequence text) {
+        int numberEnd = numberEnd(text);
+        int unitBegin = skipSpaces(text, numberEnd);
+        long multiplier;
+        if (isUnit(text, unitBegin, "Bn")) {
+            multiplier = BN;
+        } else if (isUnit(text, unitBegin, "Mn")) {
+            multiplier = MN;
+        } else if (isUnit(text, unitBegin, "K")) {
+            multiplier = K;
+        } else if (unitBegin == text.length()) {
+            multiplier = 1;
+        } else {
+            throw new NumberFormatException("For input string: \"" + text + "\", unknown unit");
+        }
+        return Math.round(parseNumberPart(text, numberEnd) * multiplier);
+    }
+
+    /*
+     *
+     */
+
+    private static StringBuilder appendBytes(StringBuilder sb, double numOfBytes, Symbols s) {
+        if (numOfBytes < 0) {
+            throw new IllegalArgumentException("Number of bytes must bigger than or equal to 0.");
+        }
+        if (numOfBytes >= GB) {
+            return appendOneDecimal(sb, numOfBytes / GB, s).append(GB_UNIT);
+        } else if (numOfBytes >= MB) {
+            return appendOneDecimal(sb, numOfBytes / MB, s).append(MB_UNIT);
+        } else if (numOfBytes >= KB) {
+            return appendOneDecimal(sb, numOfBytes / KB, s).append(KB_UNIT);
+        } else {
+            return appendOneDecimal(sb, numOfBytes, s).append(BYTES_UNIT);
+        }
+    }
+
+    private static StringBuilder appendNumber(StringBuilder sb, long num, Symbols s) {
+        if (num < 0) {
+            sb.append(DASH);
+        }
+        // Math.abs(Long.MIN_VALUE) is negative, so it is below all the units
+        double numAbs = Math.abs(num);
+        if (numAbs >= BN) {
+            return appendOneDecimal(sb, numAbs / BN, s).append(BN_UNIT);
+        } else if (numAbs >= MN) {
+            return appendUnlessRoundedUp(sb, numAbs / MN, s, MN_UNIT, "1" + BN_UNIT);
+        } else if (numAbs >= K) {
+            return appendUnlessRoundedUp(sb, numAbs / K, s, K_UNIT, "1" + MN_UNIT);
+        } else {
+            return sb.append(numAbs);
+        }
+    }
+
+    /**
+     * Append the value and the unit, or the next unit if the value is formatted as "1000"
+     * (never with non-ASCII digits, same as numberToReadable()).
+     */
+    private static StringBuilder appendUnlessRoundedUp(StringBuilder sb, double value, Symbols s, String unit,
+            String nextUnit) {
+        if (s.zeroDigit == '0' && roundToTenths(value) == 10000) {
+            return sb.append(nextUnit);
+        }
+        return appendOneDecimal(sb, value, s).append(unit);
+    }
+
+    /**
+     * Same as DecimalFormat("#.#").format(value).
+     */
+    private static StringBuilder appendOneDecimal(StringBuilder sb, double value, Symbols s) {
+        long tenths = roundToTenths(value);
+        if (tenths < 0) {
+            return sb.append(s.format.get().format(value));
+        }
+        long integerPart = tenths / 10;
+        int fraction = (int) (tenths % 10);
+        if (s.zeroDigit == '0') {
+            sb.append(integerPart);
+        } else {
+            appendDigits(sb, integerPart, s.zeroDigit);
+        }
+        if (fraction != 0) {
+            sb.append(s.decimalSeparator).append((char) (s.zeroDigit + fraction));
+        }
+        return sb;
+    }
+
+    /**
+     * <pre>
+     * The value * 10 rounded HALF_EVEN, computed on the exact value of the double (not on the
+     * rounded product), or -1 if the value is negative, -0.0, NaN, or not below MAX_FAST_PATH_VALUE.
+     * </pre>
+     */
+    static long roundToTenths(double value) {
+        if (!(value >= 0 && value < MAX_FAST_PATH_VALUE) || Double.doubleToRawLongBits(value) == Long.MIN_VALUE) {
+            return -1;
+        }
+        double product = value * 10;
+        // the exact error of the product (Dekker), 10 is short enough to need no split
+        double split = SPLITTER * value;
+        double high = split - (split - value);
+        double low = value - high;
+        double error = (high * 10 - product) + low * 10;
+        // exact value = floor + fraction + error, where fraction - 0.5 is exact
+        double floor = Math.floor(product);
+        double fractionMinusHalf = (product - floor) - 0.5;
+        long tenths = (long) floor;
+        if (fractionMinusHalf > -error || (fractionMinusHalf == -error && (tenths & 1) == 1)) {
+            tenths++;
+        }
+        return tenths;
+    }
+
+    private static void appendDigits(StringBuilder sb, long n, char zeroDigit) {
+        long divisor = 1;
+        while (n / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            sb.append((char) (zeroDigit + (n / divisor) % 10));
+        }
+    }
+
+    private static Symbols currentSymbols() {
+        Symbols s = symbols;
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        if (!s.locale.equals(locale)) {
+            s = new Symbols(locale);
+            symbols = s;
+        }
+        return s;
+    }
+
+    /**
+     * End of the leading number: an optional sign, digits and decimal separators.
+     */
+    private static int numberEnd(CharSequence text) {
+        char localeSeparator = currentSymbols().decimalSeparator;
+        int i = 0;
+        if (i < text.length() && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!(c >= '0' && c <= '9') && c != '.' && c != localeSeparator) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isUnit(CharSequence text, int unitBegin, String unit) {
+        if (text.length() - unitBegin != unit.length()) {
+            return false;
+        }
+        for (int i = 0; i < unit.length(); i++) {
+            if (Character.toUpperCase(text.charAt(unitBegin + i)) != Character.toUpperCase(unit.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipSpaces(CharSequence text, int begin) {
+        int i = begin;
+        while (i < text.length() && text.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static double parseNumberPart(CharSequence text, int numberEnd) {
+        char localeSeparator = currentSymbols().decimalSeparator;
+        if (localeSeparator != '.') {
+            for (int i = 0; i < numberEnd; i++) {
+                if (text.charAt(i) == localeSeparator) {
+                    return NumberParser.parseDouble(text.subSequence(0, numberEnd).toString().replace(localeSeparator, '.'));
+                }
+            }
+        }
+        return NumberParser.parseDouble(text, 0, numberEnd);
+    }
+
+    /**
+     * The decimal symbols of a locale, and per-thread DecimalFormats for the values off the fast path.
+     */
+    private static final class Symbols {
+
+        private final Locale locale;
+        private final char zeroDigit;
+        private final char decimalSeparator;
+        private final ThreadLocal<DecimalFormat> format;
+
+        private Symbols(Locale locale) {
+            DecimalFormatSymbols dfs = DecimalFormatSymbols.getInstance(locale);
+            this.locale = locale;
+            this.zeroDigit = dfs.getZeroDigit();
+            this.decimalSeparator = dfs.getDecimalSeparator();
+            this.format = ThreadLocal.withInitial(() -> new DecimalFormat("#.#", DecimalFormatSymbols.getInstance(locale)));
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.github.peiatgithub.java.utils.text;
+
+/**
+ * <pre>
+ * A message of format and args (same as Utils.str(format, args...)) that is
+ * rendered only when it is actually used.
+ *
+ * Creating a LazyStr only captures the format and args, so a message which is
+ * usually discarded (e.g. disabled diagnostics in a hot loop) costs almost nothing.
+ * The first toString() renders the message and keeps the result for later calls.
+ * appendTo(sb) appends the message without creating the String.
+ *
+ * Example:
+ *   LazyStr msg = LazyStr.of("row {} of {}", i, total);
+ *   if (verbose) {
+ *       printlnWithThreadName(msg);
+ *   }
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class LazyStr implements CharSequence {
+
+    private final String format;
+    private final Object[] args;
+
+    private volatile String rendered;
+
+    private LazyStr(String format, Object[] args) {
+        this.format = format;
+        this.args = args;
+    }
+
+    public static LazyStr of(String format, Object... args) {
+        return new LazyStr(format, args);
+    }
+
+    /**
+     * Tells you if the message has been rendered by toString().
+     */
+    public boolean isRendered() {
+        return rendered != null;
+    }
+
+    /**
+     * Append the message to the StringBuilder, and return the StringBuilder.
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        String result = rendered;
+        if (result != null) {
+            return sb.append(result);
+        }
+        if (format == null || args == null || args.length == 0) {
+            return sb.append(format);
+        }
+        return StrTemplate.of(format).appendTo(sb, args);
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        String result = rendered;
+        if (result == null) {
+            if (format == null || args == null || args.length == 0) {
+                result = String.valueOf(format);
+            } else {
+                result = StrTemplate.of(format).render(args);
+            }
+            rendered = result;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,346 @@
+package com.github.peiatgithub.java.utils.text;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <pre>
+ * Parses numbers straight from a range of a CharSequence (begin, end) or of a byte array
+ * (offset, length, ASCII digits), without creating a sub String or a boxed number.
+ *
+ * Parsing is strict: no white spaces, no type suffixes (like "1L" or "1d"), no hex.
+ * Any invalid input, including an empty range and an out-of-range value,
+ * throws NumberFormatException telling the input and the index (from the range begin) of the problem.
+ *
+ * Grammars:
+ *   int, long: [+-]digits
+ *   double:    [+-](digits[.digits] | .digits)[(e|E)[+-]digits], or [+-]NaN, [+-]Infinity
+ *   decimal:   [+-](digits[.digits] | .digits), no exponent
+ *
+ * parseDouble() returns the same value as Double.parseDouble() for the same text. Most inputs
+ * (up to 15 significant digits, decimal exponent within [-22, 22]) are converted exactly with
+ * a single multiplication or division, the others fall back to Double.parseDouble().
+ *
+ * parseDecimal(..., scale) returns the unscaled value of a fixed-point number,
+ * e.g. parseDecimal("12.5", 2) returns 1250, it never rounds:
+ * more non-zero fraction digits than the scale throws NumberFormatException.
+ *
+ * Example:
+ *   String line = "42,3.14,ok";
+ *   FieldCursor cursor = new FieldCursor(",").reset(line);
+ *   int id = NumberParser.parseInt(line, cursor.begin(-1, 0), cursor.end(-1, 0)); // 42
+ *   long cents = NumberParser.parseDecimal(line, cursor.begin(0, 1), cursor.end(0, 1), 2); // 314
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class NumberParser {
+
+    /** Max scale of parseDecimal(), the unscaled value is a long */
+    public static final int MAX_SCALE = 18;
+
+    private static final int MAX_FAST_PATH_DIGITS = 15;
+    private static final int MAX_FAST_PATH_EXPONENT = 22;
+    private static final int MAX_SIGNIFICANT_DIGITS = 19;
+    private static final int EXPONENT_CAP = 100_000;
+
+    private static final double[] POWERS_OF_10 = new double[MAX_FAST_PATH_EXPONENT + 1];
+
+    static {
+        POWERS_OF_10[0] = 1;
+        for (int i = 1; i < POWERS_OF_10.length; i++) {
+            POWERS_OF_10[i] = POWERS_OF_10[i - 1] * 10;
+        }
+    }
+
+    private NumberParser() {
+        throw new RuntimeException();
+    }
+
+    public static int parseInt(CharSequence cs) {
+        return parseInt(cs, 0, cs.length());
+    }
+
+    public static int parseInt(CharSequence cs, int begin, int end) {
+        checkRange(begin, end, cs.length());
+        return (int) parseIntegral(cs, null, begin, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public static int parseInt(byte[] bytes, int offset, int length) {
+        checkRange(offset, offset + length, bytes.length);
+        return (int) parseIntegral(null, bytes, offset, offset + length, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public static long parseLong(CharSequence cs) {
+        return parseLong(cs, 0, cs.length());
+    }
+
+    public static long parseLong(CharSequence cs, int begin, int end) {
+        checkRange(begin, end, cs.length());
+        return parseIntegral(cs, null, begin, end, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public static long parseLong(byte[] bytes, int offset, int length) {
+        checkRange(offset, offset + length, bytes.length);
+        return parseIntegral(null, bytes, offset, offset + length, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public static double parseDouble(CharSequence cs) {
+        return parseDouble(cs, 0, cs.length());
+    }
+
+    public static double parseDouble(CharSequence cs, int begin, int end) {
+        checkRange(begin, end, cs.length());
+        return parseDouble(cs, null, begin, end);
+    }
+
+    public static double parseDouble(byte[] bytes, int offset, int length) {
+        checkRange(offset, offset + length, bytes.length);
+        return parseDouble(null, bytes, offset, offset + length);
+    }
+
+    /**
+     * @param scale number of fraction digits of the result, in range of [0, MAX_SCALE].
+     */
+    public static long parseDecimal(CharSequence cs, int scale) {
+        return parseDecimal(cs, 0, cs.length(), scale);
+    }
+
+    /**
+     * @param scale number of fraction digits of the result, in range of [0, MAX_SCALE].
+     */
+    public static long parseDecimal(CharSequence cs, int begin, int end, int scale) {
+        checkRange(begin, end, cs.length());
+        return parseDecimal(cs, null, begin, end, scale);
+    }
+
+    /**
+     * @param scale number of fraction digits of the result, in range of [0, MAX_SCALE].
+     */
+    public static long parseDecimal(byte[] bytes, int offset, int length, int scale) {
+        checkRange(offset, offset + length, bytes.length);
+        return parseDecimal(null, bytes, offset, offset + length, scale);
+    }
+
+    /*
+     *
+     */
+
+    /**
+     * Accumulates negatively like Long.parseLong(), so that minValue can be parsed.
+     */
+    private static long parseIntegral(CharSequence cs, byte[] bytes, int begin, int end, long minValue,
+            long maxValue) {
+        if (begin == end) {
+            throw error(cs, bytes, begin, end, "empty input");
+        }
+        int i = begin;
+        boolean negative = false;
+        int c = at(cs, bytes, i);
+        if (c == '-' || c == '+') {
+            negative = (c == '-');
+            if (++i == end) {
+                throw error(cs, bytes, begin, end, "no digits");
+            }
+        }
+        long limit = negative ? minValue : -maxValue;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = digit(at(cs, bytes, i));
+            if (digit < 0) {
+                throw unexpectedChar(cs, bytes, begin, end, i);
+            }
+            if (result < multiplyMin) {
+                throw error(cs, bytes, begin, end, "out of range");
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw error(cs, bytes, begin, end, "out of range");
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static double parseDouble(CharSequence cs, byte[] bytes, int begin, int end) {
+        if (begin == end) {
+            throw error(cs, bytes, begin, end, "empty input");
+        }
+        int i = begin;
+        boolean negative = false;
+        int c = at(cs, bytes, i);
+        if (c == '-' || c == '+') {
+            negative = (c == '-');
+            i++;
+        }
+        if (i < end && (at(cs, bytes, i) == 'N' || at(cs, bytes, i) == 'I')) {
+            if (matches(cs, bytes, i, end, "NaN")) {
+                return Double.NaN;
+            } else if (matches(cs, bytes, i, end, "Infinity")) {
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            }
+            throw unexpectedChar(cs, bytes, begin, end, i);
+        }
+
+        long mantissa = 0;
+        int numOfDigits = 0;
+        int numOfSignificantDigits = 0;
+        int exponent = 0;
+        for (int digit; i < end && (digit = digit(at(cs, bytes, i))) >= 0; i++, numOfDigits++) {
+            if (numOfSignificantDigits < MAX_SIGNIFICANT_DIGITS) {
+                mantissa = mantissa * 10 + digit;
+                numOfSignificantDigits += (mantissa == 0) ? 0 : 1;
+            } else {
+                exponent++;
+            }
+        }
+        if (i < end && at(cs, bytes, i) == '.') {
+            for (i++; i < end && digit(at(cs, bytes, i)) >= 0; i++, numOfDigits++) {
+                if (numOfSignificantDigits < MAX_SIGNIFICANT_DIGITS) {
+                    mantissa = mantissa * 10 + digit(at(cs, bytes, i));
+                    numOfSignificantDigits += (mantissa == 0) ? 0 : 1;
+                    exponent--;
+                }
+            }
+        }
+        if (numOfDigits == 0) {
+            throw (i < end) ? unexpectedChar(cs, bytes, begin, end, i) : error(cs, bytes, begin, end, "no digits");
+        }
+        if (i < end && (at(cs, bytes, i) == 'e' || at(cs, bytes, i) == 'E')) {
+            if (++i == end) {
+                throw error(cs, bytes, begin, end, "no exponent digits");
+            }
+            boolean negativeExponent = false;
+            c = at(cs, bytes, i);
+            if (c == '-' || c == '+') {
+                negativeExponent = (c == '-');
+                if (++i == end) {
+                    throw error(cs, bytes, begin, end, "no exponent digits");
+                }
+            }
+            int explicitExponent = 0;
+            for (; i < end; i++) {
+                int digit = digit(at(cs, bytes, i));
+                if (digit < 0) {
+                    throw unexpectedChar(cs, bytes, begin, end, i);
+                }
+                explicitExponent = Math.min(EXPONENT_CAP, explicitExponent * 10 + digit);
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i < end) {
+            throw unexpectedChar(cs, bytes, begin, end, i);
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (numOfSignificantDigits <= MAX_FAST_PATH_DIGITS && Math.abs(exponent) <= MAX_FAST_PATH_EXPONENT) {
+            // both operands are exact doubles, so the single operation rounds correctly
+            double value = (exponent >= 0) ? mantissa * POWERS_OF_10[exponent] : mantissa / POWERS_OF_10[-exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(toString(cs, bytes, begin, end));
+    }
+
+    private static long parseDecimal(CharSequence cs, byte[] bytes, int begin, int end, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("'scale' must be in range of [0, " + MAX_SCALE + "].");
+        }
+        if (begin == end) {
+            throw error(cs, bytes, begin, end, "empty input");
+        }
+        int i = begin;
+        boolean negative = false;
+        int c = at(cs, bytes, i);
+        if (c == '-' || c == '+') {
+            negative = (c == '-');
+            i++;
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        int numOfDigits = 0;
+        int numOfFractionDigits = -1; // -1 before the '.'
+        for (; i < end; i++) {
+            c = at(cs, bytes, i);
+            if (c == '.' && numOfFractionDigits < 0) {
+                numOfFractionDigits = 0;
+                continue;
+            }
+            int digit = digit(c);
+            if (digit < 0) {
+                throw unexpectedChar(cs, bytes, begin, end, i);
+            }
+            numOfDigits++;
+            if (numOfFractionDigits >= 0 && ++numOfFractionDigits > scale) {
+                if (digit != 0) {
+                    throw error(cs, bytes, begin, end, "more than " + scale + " fraction digits");
+                }
+                continue;
+            }
+            if (result < multiplyMin) {
+                throw error(cs, bytes, begin, end, "out of range");
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw error(cs, bytes, begin, end, "out of range");
+            }
+            result -= digit;
+        }
+        if (numOfDigits == 0) {
+            throw error(cs, bytes, begin, end, "no digits");
+        }
+        for (int n = Math.max(0, numOfFractionDigits); n < scale; n++) {
+            if (result < multiplyMin) {
+                throw error(cs, bytes, begin, end, "out of range");
+            }
+            result *= 10;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * The char at index i, of the CharSequence if not null, otherwise of the byte array.
+     */
+    private static int at(CharSequence cs, byte[] bytes, int i) {
+        return (cs != null) ? cs.charAt(i) : (bytes[i] & 0xFF);
+    }
+
+    private static int digit(int c) {
+        return (c >= '0' && c <= '9') ? c - '0' : -1;
+    }
+
+    private static boolean matches(CharSequence cs, byte[] bytes, int begin, int end, String word) {
+        if (end - begin != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (at(cs, bytes, begin + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String toString(CharSequence cs, byte[] bytes, int begin, int end) {
+        return (cs != null) ? cs.subSequence(begin, end).toString()
+                : new String(bytes, begin, end - begin, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void checkRange(int begin, int end, int length) {
+        if (begin < 0 || end > length || begin > end) {
+            throw new IndexOutOfBoundsException("begin " + begin + ", end " + end + ", length " + length);
+        }
+    }
+
+    private static NumberFormatException unexpectedChar(CharSequence cs, byte[] bytes, int begin, int end, int i) {
+        return error(cs, bytes, begin, end, "unexpected char '" + (char) at(cs, bytes, i) + "' at index " + (i - begin));
+    }
+
+    private static NumberFormatException error(CharSequence cs, byte[] bytes, int begin, int end, String reason) {
+        return new NumberFormatException("For input string: \"" + toString(cs, bytes, begin, end) + "\", " + reason);
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.github.peiatgithub.java.utils.text;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * <pre>
+ * A per-thread reusable StringBuilder for building Strings without intermediate garbage.
+ *
+ * Usage:
+ *   StringBuilder sb = StrBuilderPool.acquire();
+ *   try {
+ *       ... append to sb ...
+ *       return sb.toString();
+ *   } finally {
+ *       StrBuilderPool.release(sb);
+ *   }
+ *
+ * A nested acquire() on the same thread (e.g. from an arg's toString()) gets a new
+ * StringBuilder, so the pooled one is never shared.
+ * A pooled StringBuilder grown bigger than MAX_CAPACITY is dropped on release.
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+final class StrBuilderPool {
+
+    static final int INITIAL_CAPACITY = 256;
+    static final int MAX_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<StrBuilderPool> POOL = ThreadLocal.withInitial(StrBuilderPool::new);
+
+    private StringBuilder sb = new StringBuilder(INITIAL_CAPACITY);
+    private final char[] chars = new char[1024];
+    private boolean inUse = false;
+
+    private StrBuilderPool() {
+    }
+
+    static StringBuilder acquire() {
+        StrBuilderPool pool = POOL.get();
+        if (pool.inUse) {
+            return new StringBuilder(INITIAL_CAPACITY);
+        }
+        pool.inUse = true;
+        pool.sb.setLength(0);
+        return pool.sb;
+    }
+
+    static void release(StringBuilder sb) {
+        StrBuilderPool pool = POOL.get();
+        if (sb == pool.sb) {
+            if (sb.capacity() > MAX_CAPACITY) {
+                pool.sb = new StringBuilder(INITIAL_CAPACITY);
+            }
+            pool.inUse = false;
+        }
+    }
+
+    /**
+     * Write the content of the StringBuilder to the Writer through a per-thread
+     * char buffer, since Writer.append(CharSequence) would create a String.
+     */
+    static void writeTo(StringBuilder sb, Writer writer) throws IOException {
+        char[] buf = POOL.get().chars;
+        for (int begin = 0; begin < sb.length(); begin += buf.length) {
+            int end = Math.min(sb.length(), begin + buf.length);
+            sb.getChars(begin, end, buf, 0);
+            writer.write(buf, 0, end - begin);
+        }
+    }
+
+}
@@ -0,0 +1,329 @@
+package com.github.peiatgithub.java.utils.text;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.github.peiatgithub.java.utils.Encloser;
+
+/**
+ * <pre>
+ * Join items into a String, each item enclosed with the encloser, separated by the separator.
+ * Same output as Utils.listToString(list, separator, encloser), for more kinds of input:
+ * Iterable, Iterator, Stream, Object array and primitive arrays.
+ *
+ * Example:
+ *   StrJoiner.on(", ").enclosedBy(Encloser.SINGLE).join(Arrays.asList("Tom", "Jerry"))
+ *   output: "'Tom', 'Jerry'"
+ *
+ *   StrJoiner.on(";").join(new int[] {1, 2, 3})
+ *   output: "1;2;3"
+ *
+ * null or empty input returns empty string "";
+ * null separator/encloser will be taken as empty("") separator/encloser;
+ * null items are not allowed.
+ *
+ * The separator is never appended after the last item, and the buffer is presized
+ * from the number of items and the length of the first item.
+ *
+ * For very big inputs, writeTo(out, items) streams to a Writer with bounded memory,
+ * and joinParallel(items) joins chunks on the common ForkJoinPool.
+ *
+ * Instances are immutable and thread safe.
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class StrJoiner {
+
+    /** Collections smaller than this are not joined in parallel */
+    public static final int PARALLEL_THRESHOLD = 100_000;
+
+    private static final int MIN_CHUNK_SIZE = 10_000;
+
+    private final String separator;
+    private final Encloser encloser;
+
+    private StrJoiner(String separator, Encloser encloser) {
+        this.separator = (separator == null) ? EMPTY : separator;
+        this.encloser = (encloser == null) ? Encloser.EMPTY : encloser;
+    }
+
+    public static StrJoiner on(String separator) {
+        return new StrJoiner(separator, Encloser.EMPTY);
+    }
+
+    /**
+     * Returns a joiner like this one, but enclosing each item with the encloser.
+     */
+    public StrJoiner enclosedBy(Encloser encloser) {
+        return new StrJoiner(this.separator, encloser);
+    }
+
+    public String getSeparator() {
+        return separator;
+    }
+
+    public Encloser getEncloser() {
+        return encloser;
+    }
+
+    public String join(Iterable<?> items) {
+        if (items == null) {
+            return EMPTY;
+        }
+        if (items instanceof Collection) {
+            Collection<?> c = (Collection<?>) items;
+            if (c.isEmpty()) {
+                return EMPTY;
+            }
+            return appendTo(new StringBuilder(), c.iterator(), c.size()).toString();
+        }
+        return join(items.iterator());
+    }
+
+    public String join(Iterator<?> items) {
+        if (items == null || !items.hasNext()) {
+            return EMPTY;
+        }
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendTo(sb, items).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    public String join(Stream<?> items) {
+        if (items == null) {
+            return EMPTY;
+        }
+        return join(items.iterator());
+    }
+
+    public String join(Object[] items) {
+        if (items == null || items.length == 0) {
+            return EMPTY;
+        }
+        return appendTo(new StringBuilder(), items).toString();
+    }
+
+    public String join(int[] items) {
+        if (items == null || items.length == 0) {
+            return EMPTY;
+        }
+        StringBuilder sb = new StringBuilder(estimateLength(items.length, 6));
+        for (int i = 0; i < items.length; i++) {
+            appendSeparator(sb, i).append(encloser.begin()).append(items[i]).append(encloser.end());
+        }
+        return sb.toString();
+    }
+
+    public String join(long[] items) {
+        if (items == null || items.length == 0) {
+            return EMPTY;
+        }
+        StringBuilder sb = new StringBuilder(estimateLength(items.length, 10));
+        for (int i = 0; i < items.length; i++) {
+            appendSeparator(sb, i).append(encloser.begin()).append(items[i]).append(encloser.end());
+        }
+        return sb.toString();
+    }
+
+    public String join(double[] items) {
+        if (items == null || items.length == 0) {
+            return EMPTY;
+        }
+        StringBuilder sb = new StringBuilder(estimateLength(items.length, 10));
+        for (int i = 0; i < items.length; i++) {
+            appendSeparator(sb, i).append(encloser.begin()).append(items[i]).append(encloser.end());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Append the joined items to the StringBuilder, and return the StringBuilder.
+     */
+    public StringBuilder appendTo(StringBuilder sb, Iterable<?> items) {
+        if (items == null) {
+            return sb;
+        }
+        int expectedSize = (items instanceof Collection) ? ((Collection<?>) items).size() : 0;
+        return appendTo(sb, items.iterator(), expectedSize);
+    }
+
+    /**
+     * Append the joined items to the StringBuilder, and return the StringBuilder.
+     */
+    public StringBuilder appendTo(StringBuilder sb, Iterator<?> items) {
+        return appendTo(sb, items, 0);
+    }
+
+    /**
+     * Append the joined items to the StringBuilder, and return the StringBuilder.
+     */
+    public StringBuilder appendTo(StringBuilder sb, Object[] items) {
+        if (items == null || items.length == 0) {
+            return sb;
+        }
+        int start = sb.length();
+        appendItem(sb, items[0]);
+        presize(sb, sb.length() - start, items.length);
+        for (int i = 1; i < items.length; i++) {
+            appendItem(sb.append(separator), items[i]);
+        }
+        return sb;
+    }
+
+    /**
+     * <pre>
+     * Write the joined items to the Appendable (e.g. a Writer) item by item, 
+     * so memory use does not grow with the number of items.
+     * Returns the Appendable.
+     * </pre>
+     */
+    public <A extends Appendable> A writeTo(A out, Iterator<?> items) throws IOException {
+        if (items == null) {
+            return out;
+        }
+        boolean first = true;
+        while (items.hasNext()) {
+            if (!first) {
+                out.append(separator);
+            }
+            out.append(encloser.begin()).append(items.next().toString()).append(encloser.end());
+            first = false;
+        }
+        return out;
+    }
+
+    /**
+     * Similar to {@link #writeTo(Appendable, Iterator)}.
+     */
+    public <A extends Appendable> A writeTo(A out, Iterable<?> items) throws IOException {
+        return writeTo(out, (items == null) ? null : items.iterator());
+    }
+
+    /**
+     * Similar to {@link #writeTo(Appendable, Iterator)}.
+     */
+    public <A extends Appendable> A writeTo(A out, Stream<?> items) throws IOException {
+        return writeTo(out, (items == null) ? null : items.iterator());
+    }
+
+    /**
+     * <pre>
+     * Same output as join(items), but for a big collection the items are joined in chunks
+     * on the common ForkJoinPool, and the chunks are then concatenated in order
+     * into a buffer of the exact result size.
+     * Collections smaller than PARALLEL_THRESHOLD are joined sequentially.
+     * </pre>
+     */
+    public String joinParallel(Collection<?> items) {
+        if (items == null || items.size() < PARALLEL_THRESHOLD) {
+            return join(items);
+        }
+        if (items instanceof List && items instanceof RandomAccess) {
+            List<?> list = (List<?>) items;
+            return joinParallel(list.size(), list::get);
+        }
+        return joinParallel(items.toArray());
+    }
+
+    /**
+     * Similar to {@link #joinParallel(Collection)}.
+     */
+    public String joinParallel(Object[] items) {
+        if (items == null || items.length < PARALLEL_THRESHOLD) {
+            return join(items);
+        }
+        return joinParallel(items.length, i -> items[i]);
+    }
+
+    /*
+     *
+     */
+
+    /**
+     * @param expectedSize the number of items if known, otherwise 0.
+     */
+    private StringBuilder appendTo(StringBuilder sb, Iterator<?> items, int expectedSize) {
+        if (items == null || !items.hasNext()) {
+            return sb;
+        }
+        int start = sb.length();
+        appendItem(sb, items.next());
+        presize(sb, sb.length() - start, expectedSize);
+        while (items.hasNext()) {
+            appendItem(sb.append(separator), items.next());
+        }
+        return sb;
+    }
+
+    private String joinParallel(int size, IntFunction<?> items) {
+        int numOfChunks = Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, size / MIN_CHUNK_SIZE);
+        if (numOfChunks <= 1) {
+            return appendTo(new StringBuilder(), IntStream.range(0, size).mapToObj(items).iterator(), size)
+                    .toString();
+        }
+        StringBuilder[] chunks = new StringBuilder[numOfChunks];
+        IntStream.range(0, numOfChunks).parallel().forEach(c -> {
+            int from = (int) ((long) size * c / numOfChunks);
+            int to = (int) ((long) size * (c + 1) / numOfChunks);
+            StringBuilder chunk = new StringBuilder();
+            appendItem(chunk, items.apply(from));
+            presize(chunk, chunk.length(), to - from);
+            for (int i = from + 1; i < to; i++) {
+                appendItem(chunk.append(separator), items.apply(i));
+            }
+            chunks[c] = chunk;
+        });
+        long length = (long) separator.length() * (numOfChunks - 1);
+        for (StringBuilder chunk : chunks) {
+            length += chunk.length();
+        }
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Joined String too long: " + length);
+        }
+        StringBuilder sb = new StringBuilder((int) length);
+        for (int c = 0; c < numOfChunks; c++) {
+            appendSeparator(sb, c).append(chunks[c]);
+            chunks[c] = null;
+        }
+        return sb.toString();
+    }
+
+    private void appendItem(StringBuilder sb, Object item) {
+        sb.append(encloser.begin()).append(item.toString()).append(encloser.end());
+    }
+
+    private StringBuilder appendSeparator(StringBuilder sb, int itemIdx) {
+        return (itemIdx == 0) ? sb : sb.append(separator);
+    }
+
+    /**
+     * Grow the StringBuilder once, assuming all items are as long as the first one.
+     */
+    private void presize(StringBuilder sb, int firstItemLength, int numOfItems) {
+        if (numOfItems > 1) {
+            long estimated = sb.length() + (long) (numOfItems - 1) * (firstItemLength + separator.length());
+            sb.ensureCapacity((int) Math.min(estimated, Integer.MAX_VALUE - 8));
+        }
+    }
+
+    private int estimateLength(int numOfItems, int itemLength) {
+        long estimated = (long) numOfItems
+                * (itemLength + encloser.begin().length() + encloser.end().length() + separator.length());
+        return (int) Math.min(estimated, Integer.MAX_VALUE - 8);
+    }
+
+}
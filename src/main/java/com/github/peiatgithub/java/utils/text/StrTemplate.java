@@ -0,0 +1,578 @@
+package com.github.peiatgithub.java.utils.text;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * <pre>
+ * A compiled form of the format used by Utils.str(format, args...).
+ *
+ * The format is parsed once into literal segments separated by place holders "{}",
+ * with the escaped place holder "'{''}'" already resolved to a literal "{}".
+ * Rendering is then a single append pass, without rescanning the format.
+ *
+ * Use StrTemplate.of(format) to get a template from the shared bounded cache,
+ * or StrTemplate.compile(format) to get a new one that is not cached.
+ *
+ * Instances are immutable and thread safe.
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+public final class StrTemplate {
+
+    public static final String PLACE_HOLDER = "{}";
+    public static final String ESCAPED_PLACE_HOLDER = "'{''}'";
+
+    /** Max number of templates kept in the shared cache */
+    public static final int CACHE_SIZE = 1024;
+
+    private static final LoadingCache<String, StrTemplate> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE).build(CacheLoader.from(StrTemplate::compile));
+
+    private final String format;
+
+    /** literals[i] is the text before the i-th place holder, the last one is the tail */
+    private final String[] literals;
+
+    private final int literalsLength;
+
+    /**
+     * true if the format has '{' or '}' that is neither part of a place holder nor
+     * an escaped place holder.
+     */
+    private final boolean hasLooseBraces;
+
+    private StrTemplate(String format, String[] literals, boolean hasLooseBraces) {
+        this.format = format;
+        this.literals = literals;
+        this.hasLooseBraces = hasLooseBraces;
+        int len = 0;
+        for (String literal : literals) {
+            len += literal.length();
+        }
+        this.literalsLength = len;
+    }
+
+    /**
+     * Get the compiled template of the format from the shared cache.
+     * The format must not be null.
+     */
+    public static StrTemplate of(String format) {
+        return CACHE.getUnchecked(format);
+    }
+
+    /**
+     * Parse the format into a new template, bypassing the cache.
+     * The format must not be null.
+     */
+    public static StrTemplate compile(String format) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean hasLooseBraces = false;
+        int i = 0;
+        while (i < format.length()) {
+            if (format.startsWith(ESCAPED_PLACE_HOLDER, i)) {
+                literal.append(PLACE_HOLDER);
+                i += ESCAPED_PLACE_HOLDER.length();
+            } else if (format.startsWith(PLACE_HOLDER, i)) {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                i += PLACE_HOLDER.length();
+            } else {
+                char c = format.charAt(i++);
+                hasLooseBraces |= (c == '{' || c == '}');
+                literal.append(c);
+            }
+        }
+        literals.add(literal.toString());
+        return new StrTemplate(format, literals.toArray(new String[literals.size()]), hasLooseBraces);
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public int getNumOfPlaceHolders() {
+        return literals.length - 1;
+    }
+
+    /**
+     * <pre>
+     * Render the template with the args, same as Utils.str(format, args...).
+     * The result is built in a per-thread reused StringBuilder, so the returned
+     * String is the only allocation in the common case.
+     * </pre>
+     */
+    public String render(Object... args) {
+        if (args == null || args.length == 0) {
+            return format;
+        }
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendTo(sb, args).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Similar to {@link #render}, with a system-dependent line separator at the end.
+     */
+    public String renderln(Object... args) {
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendTo(sb, args).append(System.lineSeparator()).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Append the rendered result to the StringBuilder, and return the StringBuilder.
+     */
+    public StringBuilder appendTo(StringBuilder sb, Object... args) {
+        if (args == null || args.length == 0) {
+            return sb.append(format);
+        }
+        int start = sb.length();
+        if (!appendFast(sb, args)) {
+            sb.setLength(start);
+            sb.append(renderByReplace(format, args));
+        }
+        return sb;
+    }
+
+    /**
+     * <pre>
+     * Append the rendered result to the Appendable, and return the Appendable.
+     * A StringBuilder is appended to directly, a Writer is written to without creating
+     * intermediate Strings.
+     * </pre>
+     */
+    public <A extends Appendable> A appendTo(A out, Object... args) throws IOException {
+        if (out instanceof StringBuilder) {
+            appendTo((StringBuilder) out, args);
+            return out;
+        }
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            appendTo(sb, args);
+            if (out instanceof Writer) {
+                StrBuilderPool.writeTo(sb, (Writer) out);
+            } else {
+                out.append(sb);
+            }
+            return out;
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * <pre>
+     * Append the rendered result of a long arg to the StringBuilder.
+     * The digits are written into the StringBuilder directly, without boxing or
+     * creating a String.
+     * 
+     * NOTE: int, short, byte and char args are widened to long, so a char is
+     * rendered as its code. Use appendTo(sb, Object...) for chars.
+     * </pre>
+     */
+    public StringBuilder appendTo(StringBuilder sb, long a) {
+        int i = 0;
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(a);
+        }
+        return appendRest(sb, i);
+    }
+
+    /**
+     * <pre>
+     * Append the rendered result of a double arg to the StringBuilder,
+     * the same text as Double.toString(a).
+     * 
+     * NOTE: a float arg is widened to double, which can render more digits than
+     * Float.toString(). Use appendTo(sb, Object...) for floats.
+     * </pre>
+     */
+    public StringBuilder appendTo(StringBuilder sb, double a) {
+        int i = 0;
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(a);
+        }
+        return appendRest(sb, i);
+    }
+
+    /**
+     * Similar to {@link #appendTo(StringBuilder, long)}, with 2 args.
+     */
+    public StringBuilder appendTo(StringBuilder sb, long a, long b) {
+        int i = 0;
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(a);
+        }
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(b);
+        }
+        return appendRest(sb, i);
+    }
+
+    /**
+     * Similar to {@link #appendTo(StringBuilder, long, long)}, with a long and a double arg.
+     */
+    public StringBuilder appendTo(StringBuilder sb, long a, double b) {
+        int i = 0;
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(a);
+        }
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(b);
+        }
+        return appendRest(sb, i);
+    }
+
+    /**
+     * Similar to {@link #appendTo(StringBuilder, long, long)}, with a double and a long arg.
+     */
+    public StringBuilder appendTo(StringBuilder sb, double a, long b) {
+        int i = 0;
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(a);
+        }
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(b);
+        }
+        return appendRest(sb, i);
+    }
+
+    /**
+     * Similar to {@link #appendTo(StringBuilder, long, long)}, with a double and a double arg.
+     */
+    public StringBuilder appendTo(StringBuilder sb, double a, double b) {
+        int i = 0;
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(a);
+        }
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(b);
+        }
+        return appendRest(sb, i);
+    }
+
+    /**
+     * Similar to {@link #appendTo(StringBuilder, long)}, with 3 args.
+     */
+    public StringBuilder appendTo(StringBuilder sb, long a, long b, long c) {
+        int i = 0;
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(a);
+        }
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(b);
+        }
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(c);
+        }
+        return appendRest(sb, i);
+    }
+
+    /**
+     * Similar to {@link #appendTo(StringBuilder, long)}, with 4 args.
+     */
+    public StringBuilder appendTo(StringBuilder sb, long a, long b, long c, long d) {
+        int i = 0;
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(a);
+        }
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(b);
+        }
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(c);
+        }
+        if (hasPlaceHolderAfter(i)) {
+            sb.append(literals[i++]).append(d);
+        }
+        return appendRest(sb, i);
+    }
+
+    /**
+     * Render the template with a long arg, see {@link #appendTo(StringBuilder, long)}.
+     */
+    public String render(long a) {
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendTo(sb, a).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Render the template with a double arg, see {@link #appendTo(StringBuilder, double)}.
+     */
+    public String render(double a) {
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendTo(sb, a).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Render the template with 2 long args, see {@link #appendTo(StringBuilder, long)}.
+     */
+    public String render(long a, long b) {
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendTo(sb, a, b).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Render the template with a long and a double arg, see {@link #appendTo(StringBuilder, long, double)}.
+     */
+    public String render(long a, double b) {
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendTo(sb, a, b).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Render the template with a double and a long arg, see {@link #appendTo(StringBuilder, double, long)}.
+     */
+    public String render(double a, long b) {
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendTo(sb, a, b).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Render the template with a double and a double arg, see {@link #appendTo(StringBuilder, double, double)}.
+     */
+    public String render(double a, double b) {
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendTo(sb, a, b).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Render the template with 3 long args, see {@link #appendTo(StringBuilder, long)}.
+     */
+    public String render(long a, long b, long c) {
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendTo(sb, a, b, c).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Render the template with 4 long args, see {@link #appendTo(StringBuilder, long)}.
+     */
+    public String render(long a, long b, long c, long d) {
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return appendTo(sb, a, b, c, d).toString();
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * <pre>
+     * Encode the rendered result in UTF-8 into the ByteBuffer (heap or direct),
+     * starting at its position, without creating the String or a byte array.
+     * 
+     * Returns the number of bytes written, and the position is moved forward by it.
+     * If the buffer does not have enough space remaining, nothing is written
+     * (the bytes after the position are untouched), the position is unchanged,
+     * and the returned number is negative: -(number of bytes needed).
+     * </pre>
+     */
+    public int encodeTo(ByteBuffer buf, Object... args) {
+        if (args == null || args.length == 0) {
+            return encode(buf, format);
+        }
+        StringBuilder sb = StrBuilderPool.acquire();
+        try {
+            return encode(buf, appendTo(sb, args));
+        } finally {
+            StrBuilderPool.release(sb);
+        }
+    }
+
+    /**
+     * Similar to {@link #encodeTo(ByteBuffer, Object...)}, with a long arg written as digits.
+     */
+    public int encodeTo(ByteBuffer buf, long a) {
+        if (!surelyFits(buf, 1)) {
+            StringBuilder sb = StrBuilderPool.acquire();
+            try {
+                return encode(buf, appendTo(sb, a));
+            } finally {
+                StrBuilderPool.release(sb);
+            }
+        }
+        int needed = 0;
+        int i = 0;
+        if (hasPlaceHolderAfter(i)) {
+            needed += Utf8.put(literals[i++], buf);
+            needed += Utf8.put(a, buf);
+        }
+        return needed + encodeRest(buf, i);
+    }
+
+    /**
+     * Similar to {@link #encodeTo(ByteBuffer, Object...)}, with 2 long args written as digits.
+     */
+    public int encodeTo(ByteBuffer buf, long a, long b) {
+        if (!surelyFits(buf, 2)) {
+            StringBuilder sb = StrBuilderPool.acquire();
+            try {
+                return encode(buf, appendTo(sb, a, b));
+            } finally {
+                StrBuilderPool.release(sb);
+            }
+        }
+        int needed = 0;
+        int i = 0;
+        if (hasPlaceHolderAfter(i)) {
+            needed += Utf8.put(literals[i++], buf);
+            needed += Utf8.put(a, buf);
+        }
+        if (hasPlaceHolderAfter(i)) {
+            needed += Utf8.put(literals[i++], buf);
+            needed += Utf8.put(b, buf);
+        }
+        return needed + encodeRest(buf, i);
+    }
+
+    /*
+     *
+     */
+
+    /**
+     * Append in one pass. Returns false if an arg value could make the result
+     * differ from the replace based rendering, i.e. the arg contains braces, or the
+     * format has loose braces and the arg is empty or contains a single quote. In
+     * that case the caller must discard what was appended.
+     */
+    private boolean appendFast(StringBuilder sb, Object[] args) {
+        int i = 0;
+        for (; i < args.length && hasPlaceHolderAfter(i); i++) {
+            sb.append(literals[i]);
+            int argStart = sb.length();
+            sb.append(args[i].toString());
+            if (!isSafeArg(sb, argStart)) {
+                return false;
+            }
+        }
+        appendRest(sb, i);
+        return true;
+    }
+
+    private int encodeRest(ByteBuffer buf, int literalIdx) {
+        int needed = Utf8.put(literals[literalIdx], buf);
+        for (int i = literalIdx + 1; i < literals.length; i++) {
+            needed += Utf8.put(PLACE_HOLDER, buf);
+            needed += Utf8.put(literals[i], buf);
+        }
+        return needed;
+    }
+
+    /**
+     * true if the result with numOfLongArgs long args fits in the buffer whatever the args are:
+     * at most 3 bytes per char, 20 per long.
+     */
+    private boolean surelyFits(ByteBuffer buf, int numOfLongArgs) {
+        long maxChars = literalsLength + (long) PLACE_HOLDER.length() * (literals.length - 1);
+        return buf.remaining() >= maxChars * 3 + 20L * numOfLongArgs;
+    }
+
+    /**
+     * Put the chars if they fit, counting the bytes first if they may not.
+     */
+    private static int encode(ByteBuffer buf, CharSequence cs) {
+        int remaining = buf.remaining();
+        if ((long) cs.length() * 3 > remaining) {
+            int needed = Utf8.length(cs);
+            if (needed > remaining) {
+                return -needed;
+            }
+        }
+        return Utf8.put(cs, buf);
+    }
+
+    private boolean hasPlaceHolderAfter(int literalIdx) {
+        return literalIdx < literals.length - 1;
+    }
+
+    /**
+     * Append the literals from literalIdx on, leaving the place holders without values as is.
+     */
+    private StringBuilder appendRest(StringBuilder sb, int literalIdx) {
+        sb.append(literals[literalIdx]);
+        for (int i = literalIdx + 1; i < literals.length; i++) {
+            sb.append(PLACE_HOLDER).append(literals[i]);
+        }
+        return sb;
+    }
+
+    private boolean isSafeArg(StringBuilder sb, int argStart) {
+        return isSafeArg(sb, argStart, sb.length());
+    }
+
+    private boolean isSafeArg(CharSequence cs, int argStart, int end) {
+        if (hasLooseBraces && end == argStart) {
+            return false;
+        }
+        for (int i = argStart; i < end; i++) {
+            char c = cs.charAt(i);
+            if (c == '{' || c == '}' || (hasLooseBraces && c == '\'')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The original implementation of Utils.str(format, args...), which replaces the
+     * place holders one by one in the intermediate result.
+     */
+    private static String renderByReplace(String format, Object[] args) {
+        int numOfPlaceHolder = StringUtils.countMatches(format, PLACE_HOLDER);
+        int numOfValues = args.length;
+
+        for (int i = 0; i < Math.min(numOfPlaceHolder, numOfValues); i++) {
+            format = StringUtils.replace(format, PLACE_HOLDER, args[i].toString(), 1);
+        }
+
+        return StringUtils.replace(format, ESCAPED_PLACE_HOLDER, PLACE_HOLDER);
+    }
+
+}
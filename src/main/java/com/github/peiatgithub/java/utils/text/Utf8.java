@@ -0,0 +1,129 @@
+package com.github.peiatgithub.java.utils.text;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <pre>
+ * UTF-8 encoding of chars and numbers straight into a ByteBuffer,
+ * without creating intermediate Strings or byte arrays.
+ *
+ * The put methods write as long as the bytes fit, and always return the number of
+ * bytes needed. On the first overflow the buffer position is moved to its limit,
+ * so nothing more is written and the caller can tell by comparing the sum of
+ * returned numbers with the space it had. Callers not wanting partial writes
+ * check the length() first.
+ *
+ * Malformed surrogates are encoded as '?', same as String.getBytes(UTF_8).
+ * </pre>
+ *
+ * @author pei
+ * @since 5.1
+ */
+final class Utf8 {
+
+    private Utf8() {
+        throw new RuntimeException();
+    }
+
+    static int put(CharSequence cs, int begin, int end, ByteBuffer buf) {
+        int needed = 0;
+        for (int i = begin; i < end; i++) {
+            char c = cs.charAt(i);
+            if (c < 0x80) {
+                needed += put(buf, c);
+            } else if (c < 0x800) {
+                if (fits(buf, 2)) {
+                    buf.put((byte) (0xC0 | (c >> 6))).put((byte) (0x80 | (c & 0x3F)));
+                }
+                needed += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(cs.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, cs.charAt(++i));
+                if (fits(buf, 4)) {
+                    buf.put((byte) (0xF0 | (cp >> 18))).put((byte) (0x80 | ((cp >> 12) & 0x3F)))
+                            .put((byte) (0x80 | ((cp >> 6) & 0x3F))).put((byte) (0x80 | (cp & 0x3F)));
+                }
+                needed += 4;
+            } else if (Character.isSurrogate(c)) {
+                needed += put(buf, '?');
+            } else {
+                if (fits(buf, 3)) {
+                    buf.put((byte) (0xE0 | (c >> 12))).put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                            .put((byte) (0x80 | (c & 0x3F)));
+                }
+                needed += 3;
+            }
+        }
+        return needed;
+    }
+
+    static int put(CharSequence cs, ByteBuffer buf) {
+        return put(cs, 0, cs.length(), buf);
+    }
+
+    /**
+     * Number of bytes put(cs, buf) needs.
+     */
+    static int length(CharSequence cs) {
+        int length = 0;
+        for (int i = 0; i < cs.length(); i++) {
+            char c = cs.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < cs.length() && Character.isLowSurrogate(cs.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Put the decimal digits of the number, same text as Long.toString(n).
+     */
+    static int put(long n, ByteBuffer buf) {
+        if (n == Long.MIN_VALUE) {
+            return put(Long.toString(n), buf);
+        }
+        int needed = 0;
+        if (n < 0) {
+            needed += put(buf, '-');
+            n = -n;
+        }
+        long divisor = 1;
+        while (n / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            needed += put(buf, (char) ('0' + (n / divisor) % 10));
+        }
+        return needed;
+    }
+
+    /**
+     * Put one ASCII char.
+     */
+    private static int put(ByteBuffer buf, char c) {
+        if (fits(buf, 1)) {
+            buf.put((byte) c);
+        }
+        return 1;
+    }
+
+    /**
+     * If the bytes do not fit, move the position to the limit, so nothing more will fit.
+     */
+    private static boolean fits(ByteBuffer buf, int numOfBytes) {
+        if (buf.remaining() >= numOfBytes) {
+            return true;
+        }
+        buf.position(buf.limit());
+        return false;
+    }
+
+}
@@ -3,6 +3,8 @@ package com.github.peiatgithub.java.utils.xml;
 import static com.github.peiatgithub.java.utils.Constants.*;
 import static com.github.peiatgithub.java.utils.Utils.*;
 
+import com.github.peiatgithub.java.utils.text.StrTemplate;
+
 /**
  * XpathBuilder helps to build a Xpath String
  * 
@@ -12,6 +14,10 @@ import static com.github.peiatgithub.java.utils.Utils.*;
  */
 public class XpathBuilder {
 
+    private static final StrTemplate INDEX = StrTemplate.compile("[{}]");
+    private static final StrTemplate INDEX_FROM_LAST = StrTemplate.compile("[last() - {}]");
+    private static final StrTemplate POSITION = StrTemplate.compile("[position() = {}]");
+
     private StringBuilder xpath = new StringBuilder();
 
     /**
@@ -78,7 +84,8 @@ public class XpathBuilder {
      *            starts from 1
      */
     public XpathBuilder index(int index) {
-        return append(str("[{}]", index));
+        INDEX.appendTo(this.xpath, index);
+        return this;
     }
 
     /**
@@ -93,7 +100,8 @@ public class XpathBuilder {
      *            starts from 1.
      */
     public XpathBuilder indexFromLast(int indexFromLast) {
-        return append(str("[last() - {}]", indexFromLast - 1));
+        INDEX_FROM_LAST.appendTo(this.xpath, indexFromLast - 1);
+        return this;
     }
 
     /**
@@ -103,7 +111,8 @@ public class XpathBuilder {
      *            Position starts from 1.
      */
     public XpathBuilder position(int p) {
-        return condition(str("position() = {}", p));
+        POSITION.appendTo(this.xpath, p);
+        return this;
     }
 
     /**
@@ -0,0 +1,83 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.peiatgithub.java.utils.io.ColumnExtractor;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class ColumnExtractorTests {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testExtractTo() throws Exception {
+
+        File file = tempFolder.newFile();
+        Files.write(file.toPath(), "1,Tom,Paris,\r\n2,Jerry,K\u00f6ln,\n3,,\r4,Spike,Berlin,".getBytes(StandardCharsets.UTF_8));
+        File outputFile = tempFolder.newFile();
+
+        new ColumnExtractor(COMMA, StandardCharsets.UTF_8).range(-1, 0).range(1, 2).parallelism(3).chunkSize(8)
+                .extractTo(file, outputFile, SEMICOLON);
+
+        assertThat(new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.UTF_8),
+                is("1;Paris\n2;K\u00f6ln\n3;\n4;Berlin\n"));
+
+    }
+
+    @Test
+    public void testExtract() throws Exception {
+
+        File file = tempFolder.newFile();
+        Files.write(file.toPath(), "a|b|c\nd|e|f\n".getBytes(StandardCharsets.UTF_8));
+
+        List<String> lines = new CopyOnWriteArrayList<>();
+        new ColumnExtractor("|", StandardCharsets.UTF_8).range(0, 1).range(-1, 0).parallelism(2).chunkSize(1)
+                .extract(file, fields -> lines.add(String.join(SPACE, fields)));
+
+        assertThat(lines).containsExactlyInAnyOrder("b a", "e d");
+
+        assertThatThrownBy(() -> new ColumnExtractor(EMPTY, StandardCharsets.UTF_8)).isInstanceOf(IAE);
+
+    }
+
+    @Test
+    public void testLongField() throws Exception {
+
+        // longer than the initial field buffer
+        String longField = StringUtils.repeat("x", 1000);
+        File file = tempFolder.newFile();
+        Files.write(file.toPath(), ("1," + longField + ",\n2,y,\n").getBytes(StandardCharsets.UTF_8));
+
+        List<String> lines = new CopyOnWriteArrayList<>();
+        new ColumnExtractor(COMMA, StandardCharsets.UTF_8).range(0, 1).range(-1, 0)
+                .extract(file, fields -> lines.add(String.join(SPACE, fields)));
+        assertThat(lines).containsExactlyInAnyOrder(longField + " 1", "y 2");
+
+        File outputFile = tempFolder.newFile();
+        new ColumnExtractor(COMMA, StandardCharsets.UTF_8).range(0, 1).extractTo(file, outputFile, SEMICOLON);
+        assertThat(new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.UTF_8),
+                is(longField + "\ny\n"));
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.text.FieldCursor;
+
+/**
+ * 
+ * @author pei
+ *
+ */
+public class FieldCursorTests {
+
+    @Test
+    public void testSameAsGetSubString() throws Exception {
+
+        final String theStr = ",111,aaa,bbb,,ccc,";
+
+        FieldCursor cursor = new FieldCursor(COMMA).reset(theStr);
+        assertThat(cursor.getNumOfDelimiters(), is(6));
+
+        for (int n1 = -2; n1 <= 7; n1++) {
+            for (int n2 = -2; n2 <= 7; n2++) {
+                String expected = getSubString(theStr, COMMA, n1, n2);
+                assertThat(cursor.getSubString(n1, n2), is(expected));
+                assertThat(cursor.subSequence(n1, n2).toString(), is(expected));
+                assertThat(theStr.substring(cursor.begin(n1, n2), cursor.end(n1, n2)), is(expected));
+            }
+        }
+
+    }
+
+    @Test
+    public void testReset() throws Exception {
+
+        FieldCursor cursor = new FieldCursor(SEMICOLON);
+
+        assertThat(cursor.reset(new StringBuilder("a;b;c;")).subSequence(0, 1).toString(), is("b"));
+        assertThat(cursor.reset("x;y").getNumOfDelimiters(), is(1));
+        assertThat(cursor.getSubString(-1, 0), is("x"));
+        assertThat(cursor.getSubString(0, 1), is(EMPTY));
+        assertThat(cursor.hasRange(0, 1)).isFalse();
+
+        assertThatThrownBy(() -> new FieldCursor(EMPTY)).isInstanceOf(IAE);
+
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.peiatgithub.java.utils.io.FileFollower;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class FileFollowerTests {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testFollow() throws Exception {
+
+        File file = tempFolder.newFile("app.log");
+        append(file, "old line\nunfinish");
+
+        List<String> lines = new CopyOnWriteArrayList<>();
+        try (FileFollower follower = new FileFollower(StandardCharsets.UTF_8).follow(file, lines::add)) {
+
+            assertThat(follower.poll(), is(0));
+
+            append(file, "ed\r");
+            append(file, "\nsecond\r\nthi");
+            assertThat(follower.poll(), is(2));
+            assertThat(lines).containsExactly("unfinished", "second");
+
+            // truncated
+            Files.write(file.toPath(), "new\n".getBytes(StandardCharsets.UTF_8));
+            follower.poll();
+            assertThat(lines).endsWith("new");
+
+            // rotated
+            append(file, "last");
+            Files.move(file.toPath(), new File(tempFolder.getRoot(), "app.log.1").toPath());
+            append(file, "rotated\n");
+            follower.poll();
+            assertThat(lines).endsWith("new", "last", "rotated");
+        }
+
+    }
+
+    @Test
+    public void testFollowFromBeginning() throws Exception {
+
+        File file = new File(tempFolder.getRoot(), "notYet.log");
+
+        List<String> lines = new CopyOnWriteArrayList<>();
+        try (FileFollower follower = new FileFollower(StandardCharsets.UTF_8).follow(file, true, lines::add)) {
+            assertThat(follower.poll(), is(0));
+            append(file, "1st\n2nd\n");
+            assertThat(follower.poll(), is(2));
+            assertThat(lines).containsExactly("1st", "2nd");
+        }
+
+    }
+
+    @Test
+    public void testCrLfAppendedSeparately() throws Exception {
+
+        File file = tempFolder.newFile();
+
+        List<String> lines = new CopyOnWriteArrayList<>();
+        try (FileFollower follower = new FileFollower(StandardCharsets.UTF_8).follow(file, lines::add)) {
+            append(file, "a\r");
+            follower.poll();
+            append(file, "\nb\n");
+            follower.poll();
+            assertThat(lines).containsExactly("a", "b");
+        }
+
+        // following from the end, right after the CR
+        append(file, "c\r");
+        lines.clear();
+        try (FileFollower follower = new FileFollower(StandardCharsets.UTF_8).follow(file, lines::add)) {
+            append(file, "\nd\n");
+            assertThat(follower.poll(), is(1));
+            assertThat(lines).containsExactly("d");
+        }
+
+    }
+
+    private static void append(File file, String str) throws Exception {
+        Files.write(file.toPath(), str.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.text.DecimalFormat;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.text.Humanizer;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class HumanizerTests {
+
+    @Test
+    public void testSameAsDecimalFormat() throws Exception {
+
+        Locale defaultLocale = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            // incl. decimal comma and non-ASCII digits
+            for (String tag : new String[] { "en-US", "de-DE", "ar-EG", "th-TH-u-nu-thai", "hi-IN-u-nu-deva" }) {
+                Locale.setDefault(Locale.Category.FORMAT, Locale.forLanguageTag(tag));
+                for (double numOfBytes : new double[] { 0, 0.05, 0.15, 0.25, 1.05, 1023, 1023.94, 1023.95, 1024,
+                        1536, 1126.4, 1048575, 1023.95 * MB, 1.5 * GB, 1e300 }) {
+                    assertThat(tag, Humanizer.formatBytes(numOfBytes), is(decimalFormatBytes(numOfBytes)));
+                }
+                for (long num : new long[] { 0, -999, 1000, 1050, 1150, 1250, 5666, 999949, 999950, 999954,
+                        999949999, 999950000, -999999999, BN, LIGHT_YEAR_IN_KM, Long.MAX_VALUE, Long.MIN_VALUE }) {
+                    assertThat(tag, Humanizer.formatNumber(num), is(decimalFormatNumber(num)));
+                }
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, defaultLocale);
+        }
+
+        assertThatThrownBy(() -> Humanizer.formatBytes(-1)).isInstanceOf(IAE);
+
+    }
+
+    @Test
+    public void testAppendAndSeries() throws Exception {
+
+        StringBuilder sb = new StringBuilder("size: ");
+        assertThat(Humanizer.appendBytes(sb, 1536).toString(), is("size: 1.5 KB"));
+
+        assertThat(Humanizer.appendNumbers(new StringBuilder(), new long[] { 1234578, 5666, 999, 999950 }, ", ")
+                .toString(), is("1.2 Mn, 5.7 K, 999.0, 1 Mn"));
+        assertThat(Humanizer.formatBytes(new long[] { 0, 1536, 3 * GB / 2 }))
+                .containsExactly("0 Bytes", "1.5 KB", "1.5 GB");
+
+    }
+
+    @Test
+    public void testParse() throws Exception {
+
+        assertThat(Humanizer.parseBytes("1.5 GB"), is(3 * GB / 2));
+        assertThat(Humanizer.parseBytes("512 Bytes"), is(512L));
+        assertThat(Humanizer.parseBytes("2kb"), is(2 * KB));
+        assertThat(Humanizer.parseNumber("-5.7 K"), is(-5700L));
+        assertThat(Humanizer.parseNumber("1.2 Mn"), is(1200000L));
+        assertThat(Humanizer.parseNumber("999.0"), is(999L));
+
+        assertThatThrownBy(() -> Humanizer.parseBytes("1.5 TB")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Humanizer.parseBytes("-1 KB")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Humanizer.parseNumber("Mn")).isInstanceOf(NumberFormatException.class);
+
+    }
+
+    /*
+     *
+     */
+
+    /**
+     * The original Utils.bytesToReadable().
+     */
+    private static String decimalFormatBytes(double numOfBytes) {
+        DecimalFormat df = new DecimalFormat("#.#");
+        if (numOfBytes >= GB) {
+            return df.format(numOfBytes / GB) + " GB";
+        } else if (numOfBytes >= MB) {
+            return df.format(numOfBytes / MB) + " MB";
+        } else if (numOfBytes >= KB) {
+            return df.format(numOfBytes / KB) + " KB";
+        } else {
+            return df.format(numOfBytes) + " Bytes";
+        }
+    }
+
+    /**
+     * The original Utils.numberToReadable().
+     */
+    private static String decimalFormatNumber(long num) {
+        String result;
+        double numAbs = Math.abs(num);
+        DecimalFormat df = new DecimalFormat("#.#");
+        if (numAbs >= BN) {
+            result = df.format(numAbs / BN) + " Bn";
+        } else if (numAbs >= MN) {
+            String r = df.format(numAbs / MN);
+            result = r.equals("1000") ? "1 Bn" : (r + " Mn");
+        } else if (numAbs >= K) {
+            String r = df.format(numAbs / K);
+            result = r.equals("1000") ? "1 Mn" : (r + " K");
+        } else {
+            result = String.valueOf(numAbs);
+        }
+        if (num < 0) {
+            result = DASH + result;
+        }
+        return result;
+    }
+
+}
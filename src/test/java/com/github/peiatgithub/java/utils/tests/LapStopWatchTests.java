@@ -0,0 +1,71 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.LapStopWatch;
+import com.github.peiatgithub.java.utils.NanoStopWatch;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class LapStopWatchTests {
+
+    @Test
+    public void testLaps() throws Exception {
+
+        LapStopWatch watch = new LapStopWatch(2);
+        assertThat(watch.getElapsedNanos(), is(0L));
+        assertThatThrownBy(() -> watch.lap()).isInstanceOf(IllegalStateException.class);
+
+        watch.start();
+        threadSleep(10);
+        long lap0 = watch.lap();
+        watch.pause();
+        threadSleep(100);
+        watch.resume();
+        threadSleep(10);
+        long lap1 = watch.lap();
+        assertThatThrownBy(() -> watch.lap()).isInstanceOf(IllegalStateException.class);
+        long total = watch.stop();
+
+        assertThat(watch.getNumOfLaps(), is(2));
+        assertThat(watch.getLapNanos(0), is(lap0));
+        assertThat(watch.getLapNanos(1), is(lap1));
+        assertThat(lap0).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+        // the paused time is not counted
+        assertThat(total).isGreaterThanOrEqualTo(lap0 + lap1).isLessThan(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(watch.getElapsedNanos(), is(total));
+        assertThat(watch.isRunning(), is(false));
+
+        assertThatThrownBy(() -> new LapStopWatch(-1)).isInstanceOf(IAE);
+
+    }
+
+    @Test
+    public void testNanoStopWatchPerThread() throws Exception {
+
+        NanoStopWatch.begin();
+        threadSleep(10);
+
+        // another thread using the static watch does not affect this thread
+        threadJoin(createAndStartThread(() -> {
+            NanoStopWatch.begin();
+            NanoStopWatch.stop();
+        }));
+
+        assertThat(NanoStopWatch.stopAndGetMillis()).isGreaterThanOrEqualTo(10);
+
+    }
+
+}
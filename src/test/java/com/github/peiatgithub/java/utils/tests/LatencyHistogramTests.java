@@ -0,0 +1,99 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.concurrent.RepeatRunner;
+import com.github.peiatgithub.java.utils.perf.LatencyHistogram;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class LatencyHistogramTests {
+
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    public void testPercentiles() throws Exception {
+
+        LatencyHistogram histogram = LatencyHistogram.create(ONE_MINUTE, 3);
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertThat(histogram.getCount(), is(10_000L));
+        assertThat(histogram.getMin(), is(1000L));
+        // within 3 significant digits
+        assertThat(histogram.getPercentile(50)).isBetween(5_000_000L, 5_010_000L);
+        assertThat(histogram.getPercentile(99)).isBetween(9_900_000L, 9_910_000L);
+        assertThat(histogram.getMax()).isBetween(10_000_000L, 10_010_000L);
+        assertThat(histogram.getMean()).isBetween(4_990_000.0, 5_010_000.0);
+
+        // counted as the highest trackable value
+        histogram.record(Long.MAX_VALUE);
+        assertThat(histogram.getMax(), is(ONE_MINUTE));
+
+        assertThatThrownBy(() -> LatencyHistogram.create(ONE_MINUTE, 6)).isInstanceOf(IAE);
+
+    }
+
+    @Test
+    public void testConcurrentRecordAndSnapshot() throws Exception {
+
+        LatencyHistogram histogram = LatencyHistogram.create(ONE_MINUTE, 2, 4);
+        LatencyHistogram total = LatencyHistogram.create(ONE_MINUTE, 2, 1);
+
+        Thread reporter = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                total.merge(histogram.snapshotAndReset());
+            }
+        });
+        reporter.start();
+        RepeatRunner.times(100_000).parallelism(4).run(i -> histogram.record(i));
+        reporter.interrupt();
+        reporter.join();
+        total.merge(histogram.snapshotAndReset());
+
+        // every recording in exactly one interval
+        assertThat(total.getCount(), is(100_000L));
+        assertThat(histogram.getCount(), is(0L));
+
+    }
+
+    @Test
+    public void testBytes() throws Exception {
+
+        LatencyHistogram histogram = LatencyHistogram.create(ONE_MINUTE, 3);
+        histogram.record(0);
+        histogram.record(1234567);
+        histogram.record(1234567);
+
+        byte[] bytes = histogram.toBytes();
+        assertThat(bytes.length).isLessThan(64);
+
+        LatencyHistogram read = LatencyHistogram.fromBytes(bytes);
+        assertThat(read.getCount(), is(3L));
+        assertThat(read.getMax(), is(histogram.getMax()));
+        assertThat(read.getPercentile(50), is(histogram.getPercentile(50)));
+
+        assertThatThrownBy(() -> LatencyHistogram.fromBytes(new byte[20])).isInstanceOf(IAE);
+        // truncated, within a varint or between varints
+        for (int length = 1; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThatThrownBy(() -> LatencyHistogram.fromBytes(truncated)).isInstanceOf(IAE);
+        }
+        assertThatThrownBy(() -> histogram.merge(LatencyHistogram.create(ONE_MINUTE, 2))).isInstanceOf(IAE);
+
+    }
+
+}
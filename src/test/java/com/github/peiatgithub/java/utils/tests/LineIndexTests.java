@@ -0,0 +1,99 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.peiatgithub.java.utils.io.LineIndex;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class LineIndexTests {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testGetLines() throws Exception {
+
+        File file = tempFolder.newFile();
+        Files.write(file.toPath(), "zero\r\none\ntwo\rthree".getBytes(StandardCharsets.UTF_8));
+
+        try (LineIndex index = LineIndex.open(file, StandardCharsets.UTF_8)) {
+            assertThat(index.getNumOfLines(), is(4L));
+            assertThat(index.getLine(0), is("zero"));
+            assertThat(index.getLine(3), is("three"));
+            assertThat(index.getLineBegin(2), is(10L));
+            assertThat(index.getLines(1, 3)).containsExactly("one", "two");
+            assertThat(index.getSidecar().isFile()).isTrue();
+            assertThatThrownBy(() -> index.getLine(4)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+
+    }
+
+    @Test
+    public void testExtend() throws Exception {
+
+        File file = tempFolder.newFile();
+        Files.write(file.toPath(), "a\nb\r".getBytes(StandardCharsets.UTF_8));
+
+        try (LineIndex index = LineIndex.open(file, StandardCharsets.UTF_8)) {
+            assertThat(index.getNumOfLines(), is(3L));
+
+            // the CR and the LF make one line break
+            append(file, "\nc\nd");
+            assertThat(index.extend(), is(1L));
+            assertThat(index.getLines(0, 4)).containsExactly("a", "b", "c", "d");
+        }
+
+        // loaded from the sidecar, then extended
+        append(file, "d\ne");
+        try (LineIndex index = LineIndex.open(file, StandardCharsets.UTF_8)) {
+            assertThat(index.getLines(3, 5)).containsExactly("dd", "e");
+        }
+
+        // replaced
+        Files.write(file.toPath(), "x\ny\nz\n".getBytes(StandardCharsets.UTF_8));
+        try (LineIndex index = LineIndex.open(file, StandardCharsets.UTF_8)) {
+            assertThat(index.getLines(0, 4)).containsExactly("x", "y", "z", EMPTY);
+        }
+
+    }
+
+    @Test
+    public void testUnwritableSidecar() throws Exception {
+
+        File file = tempFolder.newFile();
+        Files.write(file.toPath(), "a\nb".getBytes(StandardCharsets.UTF_8));
+        // a directory in the way of the sidecar, unwritable even for root
+        assertThat(new File(file.getPath() + LineIndex.SIDECAR_SUFFIX).mkdir()).isTrue();
+
+        try (LineIndex index = LineIndex.open(file, StandardCharsets.UTF_8)) {
+            assertThat(index.getLines(0, 2)).containsExactly("a", "b");
+            append(file, "\nc");
+            assertThat(index.extend(), is(1L));
+            assertThat(index.getLine(2), is("c"));
+            assertThat(index.getSidecar().isDirectory()).isTrue();
+        }
+
+    }
+
+    private static void append(File file, String str) throws Exception {
+        Files.write(file.toPath(), str.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+}
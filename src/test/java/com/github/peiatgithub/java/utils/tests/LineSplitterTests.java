@@ -0,0 +1,66 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.peiatgithub.java.utils.io.LineSplitter;
+import com.github.peiatgithub.java.utils.io.LineSplitter.Chunk;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class LineSplitterTests {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testCountLines() throws Exception {
+
+        File file = tempFolder.newFile();
+        Files.write(file.toPath(), "1\r\n2\n3\r4\r\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(LineSplitter.countLines(file), is(4L));
+        assertThat(LineSplitter.countLines(file, 1), is(4L));
+
+        Files.write(file.toPath(), "1\r\n2\n3\r4".getBytes(StandardCharsets.UTF_8));
+        assertThat(LineSplitter.countLines(file), is(4L));
+
+        Files.write(file.toPath(), "\n\r".getBytes(StandardCharsets.UTF_8));
+        assertThat(LineSplitter.countLines(file), is(2L));
+
+        Files.write(file.toPath(), EMPTY.getBytes(StandardCharsets.UTF_8));
+        assertThat(LineSplitter.countLines(file), is(0L));
+        assertThat(LineSplitter.countLines(file, 1), is(0L));
+
+    }
+
+    @Test
+    public void testSplit() throws Exception {
+
+        File file = tempFolder.newFile();
+        Files.write(file.toPath(), "aaaa\r\nbb\ncccccc\rdd".getBytes(StandardCharsets.UTF_8));
+
+        // the CRLF is not split
+        assertThat(LineSplitter.split(file, 4)).containsExactly(new Chunk(0, 6), new Chunk(6, 16), new Chunk(16, 18));
+        assertThat(LineSplitter.split(file, 2)).containsExactly(new Chunk(0, 9), new Chunk(9, 18));
+        assertThat(LineSplitter.split(file, 1)).containsExactly(new Chunk(0, 18));
+
+        Files.write(file.toPath(), EMPTY.getBytes(StandardCharsets.UTF_8));
+        assertThat(LineSplitter.split(file, 3)).isEmpty();
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.perf.LoadGenerator;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class LoadGeneratorTests {
+
+    @Test
+    public void testRun() throws Exception {
+
+        // a 50 ms stall at op 10, the following ops are late
+        LoadGenerator.Report report = LoadGenerator.rate(1000).operations(100).threads(1).run(i -> {
+            if (i == 10) {
+                threadSleep(50);
+            }
+            if (i == 20) {
+                throw new IllegalStateException();
+            }
+        });
+
+        assertThat(report.getNumOfOps(), is(100));
+        assertThat(report.getNumOfFailures(), is(1));
+        assertThat(report.getMaxBacklog()).isGreaterThanOrEqualTo(10);
+        assertThat(report.getResponseTime(100)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        // the ops queued behind the stall count the waiting time as response time, but not as service time
+        assertThat(report.getResponseTime(50)).isGreaterThan(report.getServiceTime(50));
+        assertThat(report.getAchievedRate()).isPositive();
+
+        assertThat(LoadGenerator.rate(100).duration(2, TimeUnit.SECONDS).threads(1).operations(3).run(() -> {})
+                .getNumOfOps(), is(3));
+        assertThatThrownBy(() -> LoadGenerator.rate(0)).isInstanceOf(IAE);
+
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.concurrent.ManagedThreadFactory;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class ManagedThreadFactoryTests {
+
+    @Test
+    public void testNewThread() throws Exception {
+
+        AtomicReference<String> failedThread = new AtomicReference<>();
+        ManagedThreadFactory factory = ManagedThreadFactory.named("worker").daemon(true)
+                .uncaughtExceptionHandler((t, e) -> failedThread.set(t.getName()));
+
+        Thread t1 = factory.newThread(() -> {});
+        assertThat(t1.getName(), is("worker-1"));
+        assertThat(t1.isDaemon(), is(true));
+        assertThat(t1.isAlive(), is(false));
+
+        Thread t2 = factory.start(() -> {
+            throw new IllegalStateException();
+        });
+        t2.join();
+        assertThat(failedThread.get(), is("worker-2"));
+
+        assertThatThrownBy(() -> ManagedThreadFactory.named(null)).isInstanceOf(NullPointerException.class);
+
+        // virtual threads for createAndStartThread() where supported
+        assertThat(ManagedThreadFactory.getDefault().isVirtual(), is(ManagedThreadFactory.isVirtualThreadSupported()));
+
+    }
+
+    @Test
+    public void testNewExecutor() throws Exception {
+
+        ManagedThreadFactory factory = ManagedThreadFactory.named("pooled").virtual(true);
+        assertThat(factory.isVirtual(), is(ManagedThreadFactory.isVirtualThreadSupported()));
+
+        ExecutorService executor = factory.newExecutor(2);
+        try {
+            assertThat(executor.submit(() -> Thread.currentThread().getName()).get()).startsWith("pooled-");
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThatThrownBy(() -> factory.newExecutor(0)).isInstanceOf(IAE);
+
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.perf.MicroBench;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class MicroBenchTests {
+
+    @Test
+    public void testRun() throws Exception {
+
+        AtomicInteger runs = new AtomicInteger();
+        MicroBench.Report report = MicroBench.of("sum").warmup(2).iterations(5).opsPerIteration(100).run(bh -> {
+            runs.incrementAndGet();
+            long sum = 0;
+            for (int i = 0; i < 100; i++) {
+                sum += i;
+            }
+            bh.consume(sum);
+        });
+
+        assertThat(runs.get(), is(700));
+        assertThat(report.getIterations(), is(5));
+        assertThat(report.getSamples()).hasSize(5);
+        assertThat(report.getP50()).isLessThanOrEqualTo(report.getP99());
+        assertThat(report.getP99()).isLessThanOrEqualTo(report.getMax());
+        assertThat(report.getMean()).isPositive().isLessThanOrEqualTo(report.getMax());
+        assertThat(report.getOpsPerSecond()).isPositive();
+        assertThat(report.toString()).startsWith("sum: ").endsWith("5 x 100 ops");
+
+        assertThatThrownBy(() -> MicroBench.of("x").iterations(0)).isInstanceOf(IAE);
+        assertThatThrownBy(() -> report.getPercentile(101)).isInstanceOf(IAE);
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.text.FieldCursor;
+import com.github.peiatgithub.java.utils.text.NumberParser;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class NumberParserTests {
+
+    @Test
+    public void testParseIntAndLong() throws Exception {
+
+        assertThat(NumberParser.parseInt("-2147483648"), is(Integer.MIN_VALUE));
+        assertThat(NumberParser.parseInt("+42"), is(42));
+        assertThat(NumberParser.parseLong("9223372036854775807"), is(Long.MAX_VALUE));
+        assertThat(NumberParser.parseLong("id=123;", 3, 6), is(123L));
+        assertThat(NumberParser.parseLong("#-77#".getBytes(StandardCharsets.US_ASCII), 1, 3), is(-77L));
+
+        assertThatThrownBy(() -> NumberParser.parseInt("2147483648")).isInstanceOf(NumberFormatException.class)
+                .hasMessageContaining("out of range");
+        assertThatThrownBy(() -> NumberParser.parseLong("12x4")).isInstanceOf(NumberFormatException.class)
+                .hasMessageContaining("'x' at index 2");
+        assertThatThrownBy(() -> NumberParser.parseLong(" 1")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> NumberParser.parseLong(EMPTY)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> NumberParser.parseLong("-")).isInstanceOf(NumberFormatException.class);
+
+    }
+
+    @Test
+    public void testParseDouble() throws Exception {
+
+        for (String s : new String[] { "0", "-0.0", "3.14", ".5", "1.", "1e-22", "6.02214076E23", "4.9e-324",
+                "1.7976931348623157e308", "1e309", "0.1234567890123456789", "-Infinity" }) {
+            assertThat(s, NumberParser.parseDouble(s), is(Double.parseDouble(s)));
+        }
+        assertThat(Double.isNaN(NumberParser.parseDouble("NaN"))).isTrue();
+        assertThat(NumberParser.parseDouble("x=2.5".getBytes(StandardCharsets.US_ASCII), 2, 3), is(2.5));
+
+        assertThatThrownBy(() -> NumberParser.parseDouble("1.5d")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> NumberParser.parseDouble("1e")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> NumberParser.parseDouble(".")).isInstanceOf(NumberFormatException.class);
+
+    }
+
+    @Test
+    public void testParseDecimal() throws Exception {
+
+        assertThat(NumberParser.parseDecimal("12.5", 2), is(1250L));
+        assertThat(NumberParser.parseDecimal("-0.07", 2), is(-7L));
+        assertThat(NumberParser.parseDecimal("3.1400", 2), is(314L));
+        assertThat(NumberParser.parseDecimal("8", 0), is(8L));
+
+        assertThatThrownBy(() -> NumberParser.parseDecimal("3.141", 2)).isInstanceOf(NumberFormatException.class)
+                .hasMessageContaining("more than 2 fraction digits");
+        assertThatThrownBy(() -> NumberParser.parseDecimal("1e2", 2)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> NumberParser.parseDecimal("1", 19)).isInstanceOf(IAE);
+
+    }
+
+    @Test
+    public void testFieldCursor() throws Exception {
+
+        FieldCursor cursor = new FieldCursor(COMMA).reset("42,3.25,ok");
+        assertThat(cursor.parseLong(-1, 0), is(42L));
+        assertThat(cursor.parseDouble(0, 1), is(3.25));
+        assertThatThrownBy(() -> cursor.parseLong(1, 2)).isInstanceOf(NumberFormatException.class);
+
+    }
+
+}
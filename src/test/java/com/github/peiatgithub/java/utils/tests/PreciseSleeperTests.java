@@ -0,0 +1,67 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.concurrent.PreciseSleeper;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class PreciseSleeperTests {
+
+    @Test
+    public void testSleep() throws Exception {
+
+        for (PreciseSleeper.Policy policy : PreciseSleeper.Policy.values()) {
+            PreciseSleeper sleeper = PreciseSleeper.of(policy);
+            for (int i = 0; i < 100; i++) {
+                long begin = System.nanoTime();
+                long overshoot = sleeper.sleepNanos(20_000);
+                assertThat(overshoot).isNotNegative();
+                assertThat(System.nanoTime() - begin).isGreaterThanOrEqualTo(20_000);
+            }
+            PreciseSleeper.Overshoots overshoots = sleeper.getOvershoots();
+            assertThat(overshoots.getCount(), is(100L));
+            assertThat(overshoots.getPercentile(50)).isLessThanOrEqualTo(overshoots.getPercentile(99));
+            assertThat(overshoots.getPercentile(100)).isLessThanOrEqualTo(overshoots.getMax());
+
+            overshoots.reset();
+            assertThat(overshoots.getCount(), is(0L));
+        }
+
+        long begin = System.nanoTime();
+        threadSleepNanos(TimeUnit.MICROSECONDS.toNanos(500));
+        assertThat(System.nanoTime() - begin).isGreaterThanOrEqualTo(TimeUnit.MICROSECONDS.toNanos(500));
+
+        assertThatThrownBy(() -> PreciseSleeper.of(null)).isInstanceOf(IAE);
+
+    }
+
+    @Test
+    public void testInterrupt() throws Exception {
+
+        PreciseSleeper sleeper = PreciseSleeper.of(PreciseSleeper.Policy.PARK_THEN_SPIN);
+        Thread.currentThread().interrupt();
+        assertThatThrownBy(() -> sleeper.sleepNanos(TimeUnit.SECONDS.toNanos(10)))
+                .isInstanceOf(InterruptedException.class);
+        assertThat(Thread.interrupted(), is(false));
+
+        // no overflow: the longest time sleeps (until interrupted), a negative one does not
+        Thread.currentThread().interrupt();
+        assertThatThrownBy(() -> sleeper.sleepNanos(Long.MAX_VALUE)).isInstanceOf(InterruptedException.class);
+        assertThat(sleeper.sleepNanos(Long.MIN_VALUE), is(0L));
+
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.Utils;
+import com.github.peiatgithub.java.utils.concurrent.RepeatRunException;
+import com.github.peiatgithub.java.utils.concurrent.RepeatRunner;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class RepeatRunnerTests {
+
+    @Test
+    public void testRun() throws Exception {
+
+        int times = 10_007;
+        AtomicIntegerArray counts = new AtomicIntegerArray(times);
+        RepeatRunner.Result result = Utils.repeatRunParallel(times, 4, i -> counts.incrementAndGet(i));
+
+        assertThat(result.getNumOfRuns(), is((long) times));
+        assertThat(result.getNumOfFailures(), is(0));
+        for (int i = 0; i < times; i++) {
+            assertThat(counts.get(i), is(1));
+        }
+
+        assertThat(RepeatRunner.times(0).run(() -> {}).getNumOfRuns(), is(0L));
+        assertThatThrownBy(() -> RepeatRunner.times(-1)).isInstanceOf(IAE);
+        assertThatThrownBy(() -> RepeatRunner.times(1).parallelism(0)).isInstanceOf(IAE);
+
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+
+        // fail fast: the first failure stops the runs
+        assertThatThrownBy(() -> RepeatRunner.times(1_000_000).parallelism(2).run(i -> {
+            throw new IllegalStateException("run " + i);
+        })).isInstanceOf(RepeatRunException.class).hasCauseInstanceOf(IllegalStateException.class)
+                .satisfies(e -> assertThat(((RepeatRunException) e).getResult().getNumOfNotRun()).isPositive());
+
+        // all the runs, failures aggregated
+        try {
+            RepeatRunner.times(1000).parallelism(3).failFast(false).run(i -> {
+                if (i % 10 == 0) {
+                    throw new IllegalStateException("run " + i);
+                }
+            });
+            fail();
+        } catch (RepeatRunException e) {
+            assertThat(e.getResult().getNumOfRuns(), is(1000L));
+            assertThat(e.getResult().getNumOfFailures(), is(100));
+            assertThat(e.getSuppressed().length, is(99));
+        }
+
+    }
+
+}
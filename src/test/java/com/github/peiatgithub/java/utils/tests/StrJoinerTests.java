@@ -0,0 +1,79 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.Encloser;
+import com.github.peiatgithub.java.utils.text.StrJoiner;
+
+/**
+ * 
+ * @author pei
+ *
+ */
+public class StrJoinerTests {
+
+    @Test
+    public void testJoin() throws Exception {
+
+        StrJoiner joiner = StrJoiner.on(COMMA + SPACE).enclosedBy(Encloser.PARENTHESES);
+
+        assertThat(joiner.join(TEST_LIST_123), is("(1), (2), (3)"));
+        assertThat(joiner.join(TEST_LIST_123.iterator()), is("(1), (2), (3)"));
+        assertThat(joiner.join(TEST_LIST_123.stream()), is("(1), (2), (3)"));
+        assertThat(joiner.join(new String[] { S1, S2, S3 }), is("(S1), (S2), (S3)"));
+        assertThat(joiner.join(TEST_INT_ARRAY_123), is("(1), (2), (3)"));
+        assertThat(joiner.join(new long[] { 1L, 2L, 3L }), is("(1), (2), (3)"));
+        assertThat(joiner.join(new double[] { 1.5 }), is("(1.5)"));
+        assertThat(joiner.appendTo(new StringBuilder(STR), TEST_LIST_123).toString(), is("STR(1), (2), (3)"));
+
+        assertThat(StrJoiner.on(null).enclosedBy(null).join(TEST_SET_123), is("123"));
+        assertThat(StrJoiner.on(SPACE).enclosedBy(Encloser.DOUBLE).join(TEST_LIST_123), is("\"1\" \"2\" \"3\""));
+
+    }
+
+    @Test
+    public void testJoinEmpty() throws Exception {
+
+        StrJoiner joiner = StrJoiner.on(WHATEVER).enclosedBy(Encloser.PARENTHESES);
+
+        assertThat(joiner.join(Collections.emptyList()), is(EMPTY));
+        assertThat(joiner.join(Stream.empty()), is(EMPTY));
+        assertThat(joiner.join(new int[0]), is(EMPTY));
+        assertThat(joiner.join((Iterable<?>) null), is(EMPTY));
+        assertThat(joiner.join((Object[]) null), is(EMPTY));
+
+    }
+
+    @Test
+    public void testWriteToAndJoinParallel() throws Exception {
+
+        StrJoiner joiner = StrJoiner.on(COMMA).enclosedBy(Encloser.SINGLE);
+
+        StringWriter writer = new StringWriter();
+        assertThat(joiner.writeTo(writer, TEST_LIST_123).toString(), is("'1','2','3'"));
+        assertThat(joiner.writeTo(new StringWriter(), Stream.empty()).toString(), is(EMPTY));
+
+        List<Integer> bigList = IntStream.range(0, StrJoiner.PARALLEL_THRESHOLD * 3 + 7).boxed()
+                .collect(Collectors.toList());
+        String expected = joiner.join(bigList);
+        assertThat(joiner.joinParallel(bigList), is(expected));
+        assertThat(joiner.joinParallel(new LinkedList<>(bigList)), is(expected));
+        assertThat(joiner.joinParallel(bigList.toArray()), is(expected));
+        assertThat(joiner.joinParallel(TEST_LIST_123), is("'1','2','3'"));
+
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.text.LazyStr;
+import com.github.peiatgithub.java.utils.text.StrTemplate;
+
+/**
+ * 
+ * @author pei
+ *
+ */
+public class StrTemplateTests {
+
+    @Test
+    public void testCompile() throws Exception {
+
+        assertThat(StrTemplate.compile("Hello, {}, I have {} gift(s) for you!").getNumOfPlaceHolders(), is(2));
+        assertThat(StrTemplate.compile("Hello, '{''}' {}.").getNumOfPlaceHolders(), is(1));
+        assertThat(StrTemplate.compile("Hello.").getNumOfPlaceHolders(), is(0));
+        assertThat(StrTemplate.of("{{},{}}"), sameInstance(StrTemplate.of("{{},{}}")));
+
+    }
+
+    @Test
+    public void testRender() throws Exception {
+
+        StrTemplate t = StrTemplate.of("Hello, {}, I have {} gift(s) for you!");
+
+        assertThat(t.render("PEI", 100), is("Hello, PEI, I have 100 gift(s) for you!"));
+        assertThat(t.render("PEI"), is("Hello, PEI, I have {} gift(s) for you!"));
+        assertThat(t.render(), is("Hello, {}, I have {} gift(s) for you!"));
+        assertThat(t.appendTo(new StringBuilder(">"), "PEI", 1).toString(),
+                is(">Hello, PEI, I have 1 gift(s) for you!"));
+
+        assertThat(StrTemplate.of("{{},{}}").render(1, 3), is("{1,3}"));
+        assertThat(StrTemplate.of("'{''}' {}").render("PEI"), is("{} PEI"));
+        assertThat(StrTemplate.of("'{''}' {}").render(), is("'{''}' {}"));
+
+    }
+
+    @Test
+    public void testRenderPrimitives() throws Exception {
+
+        StrTemplate t = StrTemplate.of("'{''}' {} {} {}");
+
+        assertThat(t.render(1), is("{} 1 {} {}"));
+        assertThat(t.render(-1L), is("{} -1 {} {}"));
+        assertThat(t.render(1.5), is("{} 1.5 {} {}"));
+        assertThat(t.render(1, 2), is("{} 1 2 {}"));
+        assertThat(t.render(3, 2.5), is("{} 3 2.5 {}"));
+        assertThat(t.render(2.5, 3L), is("{} 2.5 3 {}"));
+        assertThat(t.render(-0.0, 1e20), is("{} -0.0 1.0E20 {}"));
+        assertThat(StrTemplate.of("{}").render(1, 2.5), is("1"));
+        assertThat(t.appendTo(new StringBuilder(">"), Integer.MIN_VALUE, Double.NaN).toString(),
+                is(">{} " + Integer.MIN_VALUE + " NaN {}"));
+        assertThat(t.render(1, 2, 3), is("{} 1 2 3"));
+        assertThat(t.render(1, 2, 3, 4), is("{} 1 2 3"));
+        assertThat(t.appendTo(new StringBuilder(">"), Long.MAX_VALUE).toString(),
+                is(">{} " + Long.MAX_VALUE + " {} {}"));
+        assertThat(StrTemplate.of("Hello.").render(1), is("Hello."));
+
+    }
+
+    @Test
+    public void testEncodeTo() throws Exception {
+
+        String output = "Hello, P\u00c9I, I have 100 gift(s) for you \u20ac!";
+        byte[] expected = output.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buf = ByteBuffer.allocate(64);
+        assertThat(encodeStr(buf, "Hello, {}, I have {} gift(s) for you \u20ac!", "P\u00c9I", 100), is(expected.length));
+        assertThat(buf.position(), is(expected.length));
+        assertThat(Arrays.copyOf(buf.array(), expected.length), is(expected));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        assertThat(StrTemplate.of("[{},{}]").encodeTo(direct, 1, -20), is(7));
+        assertThat(StrTemplate.of("[{},{}]").encodeTo(direct, "\ud83d\ude00", "'{''}'"), is(9));
+
+        ByteBuffer small = ByteBuffer.wrap("--------".getBytes(StandardCharsets.UTF_8));
+        assertThat(encodeStr(small, "Hello, {}!", "PEI"), is(-11));
+        assertThat(StrTemplate.of("{}{}").encodeTo(small, 12345, 67890), is(-10));
+        assertThat(small.position(), is(0));
+        // the bytes after the position are untouched
+        assertThat(new String(small.array(), StandardCharsets.UTF_8), is("--------"));
+
+        assertThat(encodeStr(small, null, "PEI"), is(0));
+
+    }
+
+    @Test
+    public void testRenderSameAsReplacing() throws Exception {
+
+        // arg values containing place holders are replaced again, as Utils.str always did
+        assertThat(str("{} {}", "a{}", "b"), is("ab {}"));
+        assertThat(str("{}", "'{''}'"), is("{}"));
+        assertThat(str("{{}}{}", "", "b"), is("b{}"));
+        assertThat(str("'{{}}'", "''"), is("{}"));
+
+    }
+
+    @Test
+    public void testLazyStr() throws Exception {
+
+        LazyStr msg = lazyStr("Hello, {}, I have {} gift(s) for you!", "PEI", 100);
+
+        assertThat(msg.isRendered(), is(false));
+        assertThat(msg.appendTo(new StringBuilder()).toString(), is("Hello, PEI, I have 100 gift(s) for you!"));
+        assertThat(msg.isRendered(), is(false));
+        assertThat(str("[{}]", msg), is("[Hello, PEI, I have 100 gift(s) for you!]"));
+        assertThat(msg.isRendered(), is(true));
+        assertThat(msg.toString(), sameInstance(msg.toString()));
+
+        assertThat(lazyStr("Hello, {} PEI.").toString(), is("Hello, {} PEI."));
+
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.concurrent.TaskGroup;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class TaskGroupTests {
+
+    @Test
+    public void testCancelOnFailure() throws Exception {
+
+        try (TaskGroup<String> group = TaskGroup.cancelOnFailure()) {
+            group.fork(() -> sleepAndGet(S1, 50));
+            group.fork(() -> sleepAndGet(S2, 10));
+            assertThat(group.join(5, TimeUnit.SECONDS)).containsExactly(S1, S2);
+        }
+
+        try (TaskGroup<String> group = TaskGroup.cancelOnFailure()) {
+            Future<String> slow = group.fork(() -> sleepAndGet(S1, 10_000));
+            group.fork(() -> {
+                throw new IllegalStateException();
+            });
+            assertThatThrownBy(() -> group.join(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(slow.isCancelled(), is(true));
+        }
+
+    }
+
+    @Test
+    public void testCancelOnSuccess() throws Exception {
+
+        try (TaskGroup<String> group = TaskGroup.cancelOnSuccess()) {
+            Future<String> slow = group.fork(() -> sleepAndGet(S1, 10_000));
+            group.fork(() -> sleepAndGet(S2, 10));
+            assertThat(group.joinFirst(5, TimeUnit.SECONDS), is(S2));
+            assertThat(slow.isCancelled(), is(true));
+        }
+
+        try (TaskGroup<String> group = TaskGroup.cancelOnSuccess()) {
+            group.fork(() -> sleepAndGet(S1, 10_000));
+            long begin = System.nanoTime();
+            assertThatThrownBy(() -> group.joinFirst(50, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+            assertThat(System.nanoTime() - begin).isLessThan(TimeUnit.SECONDS.toNanos(5));
+            assertThatThrownBy(() -> group.fork(() -> S3)).isInstanceOf(IllegalStateException.class);
+        }
+
+    }
+
+    private static String sleepAndGet(String str, long millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return str;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.github.peiatgithub.java.utils.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static com.github.peiatgithub.java.utils.Constants.*;
+import static com.github.peiatgithub.java.utils.Utils.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.peiatgithub.java.utils.concurrent.RepeatRunner;
+import com.github.peiatgithub.java.utils.perf.Timers;
+
+/**
+ *
+ * @author pei
+ *
+ */
+public class TimersTests {
+
+    @Test
+    public void testTime() throws Exception {
+
+        try (Timers.Timing outer = Timers.time("tests.outer")) {
+            for (int i = 0; i < 3; i++) {
+                try (Timers.Timing inner = Timers.time("tests.inner")) {
+                    threadSleep(5);
+                }
+            }
+        }
+
+        Timers.Snapshot inner = Timers.timer("tests.inner").snapshot();
+        Timers.Snapshot outer = Timers.snapshot().get("tests.outer");
+        assertThat(inner.getCount(), is(3L));
+        assertThat(inner.getMinNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(inner.getMaxNanos()).isGreaterThanOrEqualTo(inner.getMinNanos());
+        assertThat(inner.getMeanNanos()).isBetween((double) inner.getMinNanos(), (double) inner.getMaxNanos());
+        assertThat(outer.getCount(), is(1L));
+        assertThat(outer.getTotalNanos()).isGreaterThanOrEqualTo(inner.getTotalNanos());
+
+        // must be closed in the reverse order
+        Timers.Timing t1 = Timers.time("tests.t1");
+        Timers.Timing t2 = Timers.time("tests.t2");
+        assertThatThrownBy(() -> t1.close()).isInstanceOf(IllegalStateException.class);
+        t2.close();
+        t1.close();
+        // closing again does nothing
+        t1.close();
+        assertThat(Timers.timer("tests.t1").snapshot().getCount(), is(1L));
+
+    }
+
+    @Test
+    public void testConcurrentTime() throws Exception {
+
+        Timers.Timer timer = Timers.timer("tests.concurrent");
+        timer.reset();
+        RepeatRunner.times(100_000).parallelism(4).run(i -> {
+            try (Timers.Timing t = Timers.time("tests.concurrent")) {
+                // nothing
+            }
+        });
+
+        Timers.Snapshot snapshot = timer.snapshotAndReset();
+        assertThat(snapshot.getCount(), is(100_000L));
+        assertThat(snapshot.getMaxNanos()).isGreaterThanOrEqualTo(snapshot.getMinNanos());
+        assertThat(timer.snapshot().getCount(), is(0L));
+
+    }
+
+}
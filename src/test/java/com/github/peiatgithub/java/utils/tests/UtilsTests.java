@@ -2,6 +2,8 @@ package com.github.peiatgithub.java.utils.tests;
 
 import static org.junit.Assert.*;
 
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import static org.hamcrest.CoreMatchers.*;
 import static org.assertj.core.api.Assertions.*;
@@ -44,6 +46,23 @@ public class UtilsTests {
 
     }
 
+    @Test
+    public void testAppendStr() throws Exception {
+
+        String theFormat = "Hello, {}, I have {} gift(s) for you!";
+        String output = "Hello, PEI, I have 100 gift(s) for you!";
+
+        StringBuilder sb = new StringBuilder(STR);
+        assertThat(appendStr(sb, theFormat, "PEI", 100).toString(), is(STR + output));
+        assertThat(appendStrln(sb, "{}", S1).toString(), is(STR + output + S1 + System.lineSeparator()));
+
+        StringWriter writer = new StringWriter();
+        appendStr(writer, theFormat, "PEI", 100);
+        appendStrln(writer, "Hello, '{''}' {}.", "PEI");
+        assertThat(writer.toString(), is(output + "Hello, {} PEI." + System.lineSeparator()));
+
+    }
+
     @Test
     public void testSafeStr() throws Exception {
 
@@ -199,9 +218,14 @@ public class UtilsTests {
 
         Thread t = createAndStartThread(() -> threadSleep(1000));
         assertThat(t.isAlive());
+        assertThat(t.getName()).startsWith("utils-thread-");
         threadJoin(t);
         assertThat(t.isAlive()).isFalse();
 
+        Thread t2 = createAndStartThread(() -> threadSleep(1000));
+        assertThat(threadJoin(t2, 10)).isFalse();
+        assertThat(threadJoin(t2, 5000)).isTrue();
+
     }
 
     @Test
@@ -267,4 +291,24 @@ public class UtilsTests {
         assertEquals("The 3rd line.", getLastLineOfFile(getResourceFile("threelinesFile.txt")));
     }
 
+    @Test
+    public void testCountLinesOfFile() throws Exception {
+        assertThat(countLinesOfFile(getResourceFile("emptyFile.txt")), is(0L));
+        assertThat(countLinesOfFile(getResourceFile("onelineFile.txt")), is(1L));
+        assertThat(countLinesOfFile(getResourceFile("secondlineEmptyFile.txt")), is(1L));
+        assertThat(countLinesOfFile(getResourceFile("threelinesFile.txt")), is(3L));
+    }
+
+    @Test
+    public void testTailLines() throws Exception {
+        assertThat(tailLines(getResourceFile("threelinesFile.txt"), 2, StandardCharsets.UTF_8))
+                .containsExactly("The 2nd line.", "The 3rd line.");
+        assertThat(tailLines(getResourceFile("threelinesFile.txt"), 5, StandardCharsets.UTF_8))
+                .containsExactly("The 1st line.", "The 2nd line.", "The 3rd line.");
+        assertThat(tailLines(getResourceFile("secondlineEmptyFile.txt"), 2, StandardCharsets.UTF_8))
+                .containsExactly("This file has two lines but the second line is empty.", EMPTY);
+        assertThat(tailLines(getResourceFile("emptyFile.txt"), 1, StandardCharsets.UTF_8)).containsExactly(EMPTY);
+        assertThat(tailLines(getResourceFile("onelineFile.txt"), 0, StandardCharsets.UTF_8)).isEmpty();
+    }
+
 }